@@ -0,0 +1,32 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.TodoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+Starts the application against a private in-memory H2 database, so that benchmarks
+never touch ./mydb and do not share rows with each other.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String database, WebApplicationType webApplicationType, String... properties) {
+        List<String> allProperties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "spring.h2.console.enabled=false",
+                "logging.level.root=WARN"));
+        allProperties.addAll(Arrays.asList(properties));
+        return new SpringApplicationBuilder(TodoApplication.class)
+                .web(webApplicationType)
+                .properties(allProperties.toArray(String[]::new))
+                .run();
+    }
+}
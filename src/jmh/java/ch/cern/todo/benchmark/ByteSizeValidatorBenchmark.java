@@ -0,0 +1,36 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.validator.ByteSize;
+import ch.cern.todo.validator.ByteSizeValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ByteSizeValidatorBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int length;
+
+    @Param({"ascii", "multibyte"})
+    private String charset;
+
+    private ByteSizeValidator validator;
+    private String value;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        validator = new ByteSizeValidator();
+        validator.initialize(TaskDto.class.getDeclaredField("description").getAnnotation(ByteSize.class));
+        // "é" is two bytes in UTF-8
+        value = (charset.equals("ascii") ? "e" : "é").repeat(length);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(value, null);
+    }
+}
@@ -0,0 +1,72 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dto.CategoryDto;
+import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.service.TaskImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Load test of GET /api/tasks over HTTP with many concurrent clients, comparing the Tomcat platform
+thread pool (200 threads) with the "virtual-threads" profile.
+SampleTime reports the latency percentiles (p99 included), Throughput the requests per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(512)
+public class RequestThreadingBenchmark {
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("threading-" + threads, WebApplicationType.SERVLET,
+                "server.port=0",
+                "server.tomcat.threads.max=200",
+                "spring.profiles.active=" + (threads.equals("virtual") ? "virtual-threads" : "default"));
+
+        List<TaskDto> taskDtos = new ArrayList<>();
+        LocalDateTime deadline = LocalDateTime.now().plusYears(1);
+        for (int i = 0; i < 1000; i++) {
+            taskDtos.add(TaskDto.builder()
+                    .name("task" + i)
+                    .deadline(deadline.plusMinutes(i))
+                    .categoryDto(CategoryDto.builder().name("category" + i % 10).build())
+                    .build());
+        }
+        context.getBean(TaskImportService.class).importTasks(taskDtos);
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/tasks?limit=20&categoryName=category3"))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int listTasks() throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
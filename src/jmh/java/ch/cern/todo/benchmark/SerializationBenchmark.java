@@ -0,0 +1,53 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<Task> tasks;
+    private List<Category> categories;
+
+    @Setup
+    public void setUp() {
+        // configured like the ObjectMapper of the application
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        categories = new ArrayList<>(size);
+        tasks = new ArrayList<>(size);
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        for (long i = 0; i < size; i++) {
+            Category category = Category.create(i, "category" + i, "c".repeat(100));
+            categories.add(category);
+            tasks.add(Task.linkToCategory(Task.create(i, "task" + i, "t".repeat(250), deadline.plusMinutes(i)), category));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeTasks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] serializeCategories() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(categories);
+    }
+}
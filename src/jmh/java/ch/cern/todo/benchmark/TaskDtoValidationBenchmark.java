@@ -0,0 +1,57 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dto.CategoryDto;
+import ch.cern.todo.dto.TaskDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskDtoValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private TaskDto valid;
+    private TaskDto invalid;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        valid = TaskDto.builder()
+                .name("Write the report")
+                .description("d".repeat(400))
+                .deadline(LocalDateTime.now().plusYears(10))
+                .categoryDto(CategoryDto.builder().name("work").description("work related tasks").build())
+                .build();
+        invalid = TaskDto.builder()
+                .name(" ")
+                .description("d".repeat(600))
+                .deadline(LocalDateTime.now().minusDays(1))
+                .categoryDto(CategoryDto.builder().name("").build())
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TaskDto>> validTask() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<TaskDto>> invalidTask() {
+        return validator.validate(invalid);
+    }
+}
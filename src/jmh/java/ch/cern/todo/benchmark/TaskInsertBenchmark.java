@@ -0,0 +1,78 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Inserts tasks through TaskRepository.saveAll, with the id generator of the Task mapping:
+allocationSize = 50 is the pooled optimizer of V3, a block of ids per sequence call,
+allocationSize = 1 is the former mode, one sequence call per row.
+The increment of tasks_seq is set before the application starts, Hibernate then sizes the generator from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TaskInsertBenchmark {
+
+    private static final int ROWS = 500;
+
+    @Param({"1", "50"})
+    private int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private TaskRepository taskRepository;
+    private Category category;
+    private LocalDateTime deadline;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String database = "task-insert-" + allocationSize;
+        String url = "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1";
+        // migrated up front, the application finds the schema up to date and keeps the altered increment
+        Flyway.configure().dataSource(url, "sa", "").locations("classpath:db/migration").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("ALTER SEQUENCE tasks_seq INCREMENT BY " + allocationSize);
+        }
+        context = BenchmarkApplication.start(database, WebApplicationType.NONE,
+                "spring.jpa.properties.hibernate.id.sequence.increment_size_mismatch_strategy=fix");
+        taskRepository = context.getBean(TaskRepository.class);
+        category = context.getBean(CategoryRepository.class).save(Category.create("benchmark", null));
+        deadline = LocalDateTime.now().plusMonths(1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTasks() {
+        taskRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Task> insertTasks() {
+        List<Task> tasks = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            tasks.add(Task.linkToCategory(Task.create("task" + i, null, deadline), category));
+        }
+        return taskRepository.saveAll(tasks);
+    }
+}
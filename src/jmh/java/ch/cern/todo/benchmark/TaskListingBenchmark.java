@@ -0,0 +1,77 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dto.CategoryDto;
+import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.repository.TaskFilter;
+import ch.cern.todo.service.TaskImportService;
+import ch.cern.todo.service.TaskService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Full task listing against the fields= listing of the list views (id, name, deadline, category name),
+from the query to the JSON bytes, on 100k tasks with 500-byte descriptions.
+The payload size of each variant is printed once at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskListingBenchmark {
+
+    private static final String LIST_VIEW_FIELDS = "id,name,deadline,category.name";
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"50", "500"})
+    private int limit;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        context = BenchmarkApplication.start("task-listing", WebApplicationType.NONE);
+        taskService = context.getBean(TaskService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        LocalDateTime deadline = LocalDateTime.now().plusYears(1);
+        List<TaskDto> taskDtos = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            taskDtos.add(TaskDto.builder()
+                    .name("task" + i)
+                    .description("t".repeat(500))
+                    .deadline(deadline.plusMinutes(i))
+                    .categoryDto(CategoryDto.builder().name("category" + i % 20).build())
+                    .build());
+        }
+        context.getBean(TaskImportService.class).importTasks(taskDtos);
+
+        System.out.printf("%nlimit %d: full listing %d bytes, fields listing %d bytes%n",
+                limit, listFullTasks().length, listTaskFields().length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] listFullTasks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(taskService.retrieveTasks(TaskFilter.none(), null, limit));
+    }
+
+    @Benchmark
+    public byte[] listTaskFields() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(taskService.retrieveTaskFields(TaskFilter.none(), null, limit, LIST_VIEW_FIELDS));
+    }
+}
@@ -0,0 +1,91 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dto.CategoryDto;
+import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.dto.TaskPage;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.pagination.TaskCursor;
+import ch.cern.todo.repository.TaskFilter;
+import ch.cern.todo.service.TaskImportService;
+import ch.cern.todo.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskServiceBenchmark {
+
+    private static final int CATEGORIES = 20;
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"50"})
+    private int limit;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private String deepCursor;
+    private LocalDateTime deadline;
+    private final AtomicLong counter = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("task-service", WebApplicationType.NONE);
+        taskService = context.getBean(TaskService.class);
+        deadline = LocalDateTime.now().plusYears(1);
+
+        List<TaskDto> taskDtos = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            taskDtos.add(TaskDto.builder()
+                    .name("task" + i)
+                    .description("t".repeat(250))
+                    .deadline(deadline.plusMinutes(i))
+                    .categoryDto(CategoryDto.builder().name("category" + i % CATEGORIES).build())
+                    .build());
+        }
+        context.getBean(TaskImportService.class).importTasks(taskDtos);
+
+        // position of the page starting at 90% of the table
+        TaskPage page = taskService.retrieveTasks(TaskFilter.none(), null, 1);
+        Task first = page.getItems().get(0);
+        deepCursor = new TaskCursor(first.getDeadline().plusMinutes(rows * 9L / 10), 0L).encode();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Task createTask() {
+        long i = counter.incrementAndGet();
+        return taskService.createTask(
+                Task.create("created" + i, "t".repeat(250), deadline.plusMinutes(i)),
+                Category.create("category" + i % CATEGORIES, null));
+    }
+
+    @Benchmark
+    public TaskPage retrieveFirstPage() {
+        return taskService.retrieveTasks(TaskFilter.none(), null, limit);
+    }
+
+    @Benchmark
+    public TaskPage retrieveDeepPage() {
+        return taskService.retrieveTasks(TaskFilter.none(), deepCursor, limit);
+    }
+
+    @Benchmark
+    public TaskPage retrieveCategoryPage() {
+        return taskService.retrieveTasks(TaskFilter.builder().categoryName("category7").build(), null, limit);
+    }
+}
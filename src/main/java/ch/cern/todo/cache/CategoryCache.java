@@ -0,0 +1,95 @@
+package ch.cern.todo.cache;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.CacheStatistics;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.repository.CategoryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Bounded (W-TinyLFU) cache from category name to a detached copy of the category,
+used by the task write path to avoid a lookup query per write.
+Only existing categories are cached, so a rolled back creation can never leak an id.
+Entries are invalidated after commit through the id of the changed category: the cache remembers the name
+each cached id was loaded under, so a rename or a deletion evicts the previous name without reading it back.
+A lookup racing with the commit may still cache the previous row,
+the expiry bounds its lifetime and CategoryResolver reloads a category whose id was rejected by the database.
+ */
+@Component
+public class CategoryCache implements MeterBinder {
+
+    private final CategoryRepository categoryRepository;
+    private final Cache<String, Category> cache;
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+
+    public CategoryCache(CategoryRepository categoryRepository, TodoProperties todoProperties) {
+        this.categoryRepository = categoryRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(todoProperties.getCategoryCache().getMaximumSize())
+                .expireAfterWrite(todoProperties.getCategoryCache().getExpireAfterWrite())
+                .recordStats()
+                // runs inside the eviction, so the index never points to an entry that expired or was evicted
+                .evictionListener((String name, Category category, RemovalCause cause) -> {
+                    if (category != null) namesById.remove(category.getId(), name);
+                })
+                .build();
+    }
+
+    public Optional<Category> findByName(String name) {
+        return Optional.ofNullable(cache.get(name, this::load));
+    }
+
+    public void invalidate(String name) {
+        Category removed = cache.asMap().remove(name);
+        if (removed != null) {
+            namesById.remove(removed.getId(), name);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // renames and deletions leave the previous name behind
+        String cachedName = namesById.get(event.getId());
+        if (cachedName != null) {
+            invalidate(cachedName);
+        }
+        if (event.getCategory() != null) {
+            invalidate(event.getCategory().getName());
+        }
+    }
+
+    public CacheStatistics statistics() {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "categoryByName");
+    }
+
+    private Category load(String name) {
+        return categoryRepository.findCategoriesByName(name)
+                .map(category -> {
+                    Category copy = Category.create(category.getId(), category.getName(), category.getDescription());
+                    copy.setVersion(category.getVersion());
+                    namesById.put(copy.getId(), copy.getName());
+                    return copy;
+                })
+                .orElse(null);
+    }
+}
@@ -0,0 +1,43 @@
+package ch.cern.todo.cache;
+
+import ch.cern.todo.dto.RegionStatistics;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/*
+Hit ratios of the Hibernate second-level cache regions, from the Hibernate statistics.
+The same figures are exported to Prometheus as hibernate_second_level_cache_requests.
+ */
+@AllArgsConstructor
+@Component
+public class SecondLevelCacheStatistics {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public List<RegionStatistics> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> toRegionStatistics(region, statistics.getCacheRegionStatistics(region)))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private static RegionStatistics toRegionStatistics(String region, CacheRegionStatistics statistics) {
+        if (statistics == null) {
+            return null;
+        }
+        long requests = statistics.getHitCount() + statistics.getMissCount();
+        double hitRate = requests == 0 ? 1.0 : (double) statistics.getHitCount() / requests;
+        return new RegionStatistics(region, statistics.getHitCount(), statistics.getMissCount(),
+                statistics.getPutCount(), hitRate);
+    }
+}
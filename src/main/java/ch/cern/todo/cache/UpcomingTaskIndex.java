@@ -0,0 +1,228 @@
+package ch.cern.todo.cache;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.UpcomingTask;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.event.TasksReassignedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.repository.TaskSummary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/*
+Tasks whose deadline is not passed yet, ordered by (deadline, id), so that the next due tasks are read
+from memory without touching the database.
+Warmed from the database at startup, then kept in sync by the committed task and category changes.
+Changes of a task are applied one at a time through its entry in byId, an older version never replaces
+a newer one. Reads are weakly consistent: a read running with a write may miss the written task or see
+its previous deadline, it never sees a task twice.
+Passed deadlines are pruned by the reads.
+ */
+@Component
+public class UpcomingTaskIndex implements MeterBinder {
+
+    private final TaskRepository taskRepository;
+    private final CategoryRepository categoryRepository;
+    private final ConcurrentSkipListMap<Key, Entry> byDeadline = new ConcurrentSkipListMap<>();
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    // detached copies, tasks reference their category by id so that a rename is a single put
+    private final Map<Long, Category> categories = new ConcurrentHashMap<>();
+    private final Cache<Long, Boolean> deletedIds;
+    private final TransactionTemplate transactionTemplate;
+    private final TodoProperties todoProperties;
+
+    public UpcomingTaskIndex(TaskRepository taskRepository, CategoryRepository categoryRepository,
+                             PlatformTransactionManager transactionManager, TodoProperties todoProperties) {
+        this.taskRepository = taskRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.todoProperties = todoProperties;
+        this.deletedIds = Caffeine.newBuilder()
+                .expireAfterWrite(todoProperties.getUpcoming().getDeletedRetention())
+                .build();
+    }
+
+    /*
+    The due tasks are streamed as projections, the heap holds the index entries only,
+    not the result list nor the managed tasks and categories of a whole table.
+     */
+    @PostConstruct
+    public void warmUp() {
+        categoryRepository.findAll().forEach(category -> categories.put(category.getId(), copy(category)));
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<TaskSummary> tasks = taskRepository.streamDueFrom(LocalDateTime.now(),
+                    todoProperties.getUpcoming().getFetchSize())) {
+                tasks.forEach(task -> put(new Entry(task.id(), task.name(), task.description(), task.deadline(),
+                        task.version(), task.categoryId())));
+            }
+        });
+    }
+
+    /*
+    The limit first tasks due from now, by deadline then id.
+     */
+    public List<UpcomingTask> findUpcoming(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        prune(now);
+        List<UpcomingTask> upcoming = new ArrayList<>();
+        Set<Long> seenIds = new HashSet<>();
+        for (Entry entry : byDeadline.tailMap(new Key(now, Long.MIN_VALUE)).values()) {
+            if (upcoming.size() == limit) {
+                break;
+            }
+            // a moving task is briefly under both its deadlines, the first one met is kept
+            if (seenIds.add(entry.id())) {
+                upcoming.add(new UpcomingTask(entry.id(), entry.name(), entry.description(), entry.deadline(),
+                        entry.version(), entry.categoryId() == null ? null : categories.get(entry.categoryId())));
+            }
+        }
+        return upcoming;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    // the task write path does not always run in a transaction, its events are then published after the write
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED -> put(event.getTask());
+            case DELETED -> remove(event.getId());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.getCategory() == null) {
+            categories.remove(event.getId());
+        } else {
+            categories.put(event.getId(), copy(event.getCategory()));
+        }
+    }
+
+    @TransactionalEventListener
+    public void onTasksReassigned(TasksReassignedEvent event) {
+        // the set-based update bumped the version of every moved task
+        for (Long id : byId.keySet()) {
+            byId.computeIfPresent(id, (key, current) -> {
+                if (!event.getSourceId().equals(current.categoryId())) {
+                    return current;
+                }
+                Entry moved = new Entry(current.id(), current.name(), current.description(), current.deadline(),
+                        current.version() == null ? null : current.version() + 1, event.getTargetId());
+                byDeadline.put(moved.key(), moved);
+                return moved;
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("todo.upcoming.index.size", byId, Map::size)
+                .register(registry);
+    }
+
+    private void put(Task task) {
+        if (task.getDeadline() == null) {
+            return;
+        }
+        // the id of a category proxy is read without initializing it
+        Category category = task.getCategory();
+        if (category != null && Hibernate.isInitialized(category)) {
+            categories.putIfAbsent(category.getId(), copy(category));
+        }
+        put(new Entry(task.getId(), task.getName(), task.getDescription(), task.getDeadline(),
+                task.getVersion(), category == null ? null : category.getId()));
+    }
+
+    private void put(Entry entry) {
+        byId.compute(entry.id(), (id, current) -> {
+            if (deletedIds.getIfPresent(id) != null || (current != null && isOlder(entry, current))) {
+                return current;
+            }
+            byDeadline.put(entry.key(), entry);
+            if (current != null && !current.key().equals(entry.key())) {
+                byDeadline.remove(current.key());
+            }
+            return entry;
+        });
+    }
+
+    private void remove(Long id) {
+        deletedIds.put(id, Boolean.TRUE);
+        byId.computeIfPresent(id, (key, current) -> {
+            byDeadline.remove(current.key());
+            return null;
+        });
+    }
+
+    private void prune(LocalDateTime now) {
+        ConcurrentNavigableMap<Key, Entry> passed = byDeadline.headMap(new Key(now, Long.MIN_VALUE));
+        for (Entry entry : passed.values()) {
+            // an entry replaced meanwhile was already moved by its writer
+            byId.computeIfPresent(entry.id(), (id, current) -> {
+                if (current != entry) {
+                    return current;
+                }
+                byDeadline.remove(entry.key(), entry);
+                return null;
+            });
+        }
+    }
+
+    // a null version comes from an update without expected version, it is applied whatever the current one is
+    private static boolean isOlder(Entry entry, Entry current) {
+        return entry.version() != null && current.version() != null && entry.version() < current.version();
+    }
+
+    private static Category copy(Category category) {
+        Category copy = Category.create(category.getId(), category.getName(), category.getDescription());
+        copy.setVersion(category.getVersion());
+        return copy;
+    }
+
+    record Key(LocalDateTime deadline, long id) implements Comparable<Key> {
+
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::deadline).thenComparingLong(Key::id);
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    record Entry(Long id, String name, String description, LocalDateTime deadline, Long version, Long categoryId) {
+
+        Key key() {
+            return new Key(deadline, id);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ch.cern.todo.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+The task and category reads are negotiated between JSON, CBOR and Smile (see BinaryFormatsConfig):
+their responses vary on Accept, 304 included, so that a cache never answers a request with another representation.
+ */
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+                    @Override
+                    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                        return true;
+                    }
+                })
+                .addPathPatterns("/api/tasks", "/api/tasks/*", "/api/categories", "/api/categories/*")
+                .excludePathPatterns("/api/tasks/export");
+    }
+}
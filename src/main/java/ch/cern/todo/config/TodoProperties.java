@@ -0,0 +1,107 @@
+package ch.cern.todo.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "todo")
+public class TodoProperties {
+
+    private final Page page = new Page();
+    private final BulkImport bulkImport = new BulkImport();
+    private final CategoryCache categoryCache = new CategoryCache();
+    private final Export export = new Export();
+    private final Batch batch = new Batch();
+    private final CategoryDeletion categoryDeletion = new CategoryDeletion();
+    private final ChangeFeed changeFeed = new ChangeFeed();
+    private final Sync sync = new Sync();
+    private final Upcoming upcoming = new Upcoming();
+    private final Overdue overdue = new Overdue();
+
+    @Getter
+    @Setter
+    public static class Page {
+        private int defaultLimit = 50;
+        private int maxLimit = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class BulkImport {
+        private int chunkSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class CategoryCache {
+        private long maximumSize = 1000;
+        // bounds how long an entry loaded concurrently with a rename or a deletion can outlive it
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Export {
+        private int fetchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        private int maxIds = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class CategoryDeletion {
+        private int batchSize = 1000;
+        private Duration jobRetention = Duration.ofHours(1);
+        // rounds of batches run while tasks keep being added to the category, the job fails after the last one
+        private int maxRounds = 5;
+    }
+
+    @Getter
+    @Setter
+    public static class ChangeFeed {
+        // events queued per subscriber before it is disconnected as too slow
+        private int bufferSize = 256;
+        // last events kept for the replay on reconnection
+        private int historySize = 1000;
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Sync {
+        /*
+        Longest expected write transaction: a change sequence value is taken before the commit,
+        changes more recent than this are returned but the token does not move past them yet.
+         */
+        private Duration settleTime = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Upcoming {
+        // deletions are remembered that long, so that a late event of the deleted task cannot bring it back
+        private Duration deletedRetention = Duration.ofMinutes(1);
+        // rows read at a time by the warm-up, which streams the due tasks instead of loading them at once
+        private int fetchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Overdue {
+        private boolean enabled = true;
+        // interval between two sweeps, the transition lags the deadline by up to this much
+        private Duration tick = Duration.ofSeconds(1);
+        // deadlines loaded ahead in memory, refilled once half of it is consumed
+        private Duration window = Duration.ofMinutes(10);
+        // tasks flipped by a single update
+        private int batchSize = 500;
+    }
+}
@@ -1,15 +1,24 @@
 package ch.cern.todo.controller;
 
+import ch.cern.todo.dto.BatchResult;
 import ch.cern.todo.dto.CategoryDto;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.ReassignResult;
 import ch.cern.todo.model.Category;
 import ch.cern.todo.service.CategoryService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @AllArgsConstructor
 @RestController
@@ -17,6 +26,7 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CategoryListSnapshot categoryListSnapshot;
 
     @PostMapping
     public ResponseEntity<Category> createCategory(@Valid @RequestBody CategoryDto categoryDto) {
@@ -31,31 +41,119 @@ public class CategoryController {
     @PutMapping("/{id}")
     public ResponseEntity<Category> updateCategory(@Valid @RequestBody CategoryDto categoryDto, @PathVariable Long id) {
         Category category = Category.create(id, categoryDto.getName(), categoryDto.getDescription());
+        category.setVersion(categoryDto.getVersion());
         return new ResponseEntity<>(
                 categoryService.updateCategory(category),
                 HttpStatus.OK
         );
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity<Category> findCategory(@PathVariable Long id) {
+    @PostMapping("/{id}/reassign")
+    public ResponseEntity<ReassignResult> reassignTasks(@PathVariable Long id,
+                                                        @RequestParam Long target,
+                                                        @RequestParam(defaultValue = "false") boolean deleteSource) {
         return new ResponseEntity<>(
-                categoryService.findCategoryById(id),
+                categoryService.reassignTasks(id, target, deleteSource),
                 HttpStatus.OK
         );
     }
 
-    @GetMapping
-    public ResponseEntity<List<Category>> findAllCategories() {
+    @GetMapping("/{id}")
+    public ResponseEntity<Category> findCategory(@PathVariable Long id) {
+        Category category = categoryService.findCategoryById(id);
+        // with a matching If-None-Match Spring MVC answers 304 and skips the serialization of the body
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETags.of(category));
+        Instant lastModified = ETags.lastModified(category);
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return response.body(category);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResult<Category>> findCategories(@RequestParam List<Long> ids) {
         return new ResponseEntity<>(
-                categoryService.retrieveAllCategories(),
+                categoryService.findCategoriesByIds(ids),
                 HttpStatus.OK
         );
     }
 
+    /*
+    JSON is written from the in-memory snapshot, without query nor serialization, when it is the preferred
+    representation. Anything else is negotiated by the message converters as for the other endpoints,
+    binary representations as well as the 406 of unsupported ones.
+     */
+    @GetMapping
+    public ResponseEntity<?> findAllCategories(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                               WebRequest request) {
+        if (!prefersJson(accept)) {
+            // the version of the table is checked before any category is loaded
+            String eTag = ETags.of(categoryService.listVersions());
+            if (request.checkNotModified(eTag)) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .body(categoryService.retrieveAllCategories());
+        }
+        CategoryListSnapshot.Snapshot snapshot = categoryListSnapshot.get();
+        if (request.checkNotModified(snapshot.eTag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.eTag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.body());
+    }
+
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> findAllCategoryFields(@RequestParam String fields, WebRequest request) {
+        String eTag = ETags.of(categoryService.listVersions(), fields);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(categoryService.retrieveAllCategoryFields(fields));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
         categoryService.deleteCategoryById(id);
         return ResponseEntity.ok().build();
     }
+
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<List<DeleteResult>> deleteCategories(@RequestParam List<Long> ids) {
+        return new ResponseEntity<>(
+                categoryService.deleteCategoriesByIds(ids),
+                HttpStatus.OK
+        );
+    }
+
+    // the snapshot is JSON, it answers the requests whose preferred acceptable type includes JSON
+    private static boolean prefersJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            // rejected by the converters
+            return false;
+        }
+        MediaType preferred = null;
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0 && mediaType.includes(MediaType.APPLICATION_JSON)) {
+                // q=0, JSON is explicitly refused
+                return false;
+            }
+            if (mediaType.getQualityValue() > 0
+                    && (preferred == null || mediaType.getQualityValue() > preferred.getQualityValue())) {
+                preferred = mediaType;
+            }
+        }
+        return preferred != null && preferred.includes(MediaType.APPLICATION_JSON);
+    }
 }
@@ -0,0 +1,33 @@
+package ch.cern.todo.controller;
+
+import ch.cern.todo.dto.CategoryDeletionJob;
+import ch.cern.todo.service.CategoryDeletionService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/category-deletions")
+public class CategoryDeletionController {
+
+    private final CategoryDeletionService categoryDeletionService;
+
+    @PostMapping
+    public ResponseEntity<CategoryDeletionJob> startDeletion(@RequestParam Long categoryId) {
+        CategoryDeletionJob job = categoryDeletionService.startDeletion(categoryId);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{jobId}")
+                .buildAndExpand(job.getId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<CategoryDeletionJob> findJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(categoryDeletionService.findJob(jobId));
+    }
+}
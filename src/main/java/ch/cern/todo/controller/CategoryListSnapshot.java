@@ -0,0 +1,68 @@
+package ch.cern.todo.controller;
+
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.service.CategoryService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+JSON body and ETag of GET /api/categories, written as they are to every response.
+A committed category change drops the snapshot, the next request rebuilds it, so a burst of changes
+(an import creating categories) costs a single rebuild. Readers never lock: the generation and its snapshot
+are swapped together, a rebuild is only kept if no change was committed since it started,
+otherwise it is returned to its caller, which raced with the change, and the next request rebuilds again.
+ */
+@Component
+@AllArgsConstructor
+class CategoryListSnapshot {
+
+    private final CategoryService categoryService;
+    private final ObjectMapper objectMapper;
+    // one holder per committed change, its snapshot is set at most once by a rebuild started after that change
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(0, null));
+
+    record Snapshot(byte[] body, String eTag) {
+    }
+
+    private record Generation(long changes, Snapshot snapshot) {
+    }
+
+    Snapshot get() {
+        Generation current = generation.get();
+        return current.snapshot() != null ? current.snapshot() : rebuild(current);
+    }
+
+    @TransactionalEventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidate();
+    }
+
+    void invalidate() {
+        generation.updateAndGet(current -> new Generation(current.changes() + 1, null));
+    }
+
+    private Snapshot rebuild(Generation builtAt) {
+        // read after the generation, the rows include at least the changes it counts
+        Snapshot rebuilt = new Snapshot(serialize(categoryService.retrieveAllCategories()),
+                ETags.of(categoryService.listVersions()));
+        // fails when a change was committed meanwhile, or another rebuild of the same generation won
+        generation.compareAndSet(builtAt, new Generation(builtAt.changes(), rebuilt));
+        return rebuilt;
+    }
+
+    private byte[] serialize(List<Category> categories) {
+        try {
+            return objectMapper.writeValueAsBytes(categories);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ch.cern.todo.controller;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.feed.ChangeFeed;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/events")
+public class ChangeFeedController {
+
+    private final ChangeFeed changeFeed;
+    private final TodoProperties todoProperties;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(todoProperties.getChangeFeed().getTimeout().toMillis());
+        changeFeed.subscribe(emitter, lastEventId);
+        return emitter;
+    }
+}
@@ -0,0 +1,82 @@
+package ch.cern.todo.controller;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.TableVersion;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+Weak validators of the API representations, compared with If-None-Match by Spring MVC.
+They are derived from the rows, not from the bytes: the JSON, CBOR and Smile representations of the same rows
+share them, which a strong validator must not. The responses vary on Accept, see ContentNegotiationConfig.
+A task embeds its category, so its validators cover both rows.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Task task) {
+        Category category = task.getCategory();
+        return weak(category == null
+                ? task.getId() + "." + task.getVersion()
+                : task.getId() + "." + task.getVersion() + "-" + version(category));
+    }
+
+    static String of(Category category) {
+        return weak(version(category));
+    }
+
+    /*
+    Validator of a listing: the versions of the tables it reads, plus a digest of its parameters,
+    a page or a filter never matches the validator of another one.
+     */
+    static String of(List<TableVersion> versions, Object... parameters) {
+        String tables = versions.stream()
+                .map(version -> version.rows() + "." + version.maxId() + "." + version.versionSum())
+                .collect(Collectors.joining("-"));
+        if (parameters.length == 0) {
+            return weak(tables);
+        }
+        String query = Arrays.stream(parameters)
+                .map(parameter -> parameter == null ? "" : parameter.toString())
+                .collect(Collectors.joining("\n"));
+        return weak(tables + "-" + DigestUtils.md5DigestAsHex(query.getBytes(StandardCharsets.UTF_8)).substring(0, 16));
+    }
+
+    static Instant lastModified(Task task) {
+        Category category = task.getCategory();
+        if (category == null || category.getUpdatedAt() == null) {
+            return toInstant(task.getUpdatedAt());
+        }
+        if (task.getUpdatedAt() == null) {
+            return null;
+        }
+        return toInstant(task.getUpdatedAt().isAfter(category.getUpdatedAt()) ? task.getUpdatedAt() : category.getUpdatedAt());
+    }
+
+    static Instant lastModified(Category category) {
+        return toInstant(category.getUpdatedAt());
+    }
+
+    private static String version(Category category) {
+        return category.getId() + "." + category.getVersion();
+    }
+
+    private static String weak(String validator) {
+        return "W/\"" + validator + "\"";
+    }
+
+    // the column holds the local time of the database session
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
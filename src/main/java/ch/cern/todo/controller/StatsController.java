@@ -0,0 +1,39 @@
+package ch.cern.todo.controller;
+
+import ch.cern.todo.cache.CategoryCache;
+import ch.cern.todo.cache.SecondLevelCacheStatistics;
+import ch.cern.todo.dto.CacheStatistics;
+import ch.cern.todo.dto.RegionStatistics;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final CategoryCache categoryCache;
+    private final SecondLevelCacheStatistics secondLevelCacheStatistics;
+
+    @GetMapping("/category-cache")
+    public ResponseEntity<CacheStatistics> categoryCacheStatistics() {
+        return new ResponseEntity<>(
+                categoryCache.statistics(),
+                HttpStatus.OK
+        );
+    }
+
+    @GetMapping("/second-level-cache")
+    public ResponseEntity<List<RegionStatistics>> secondLevelCacheStatistics() {
+        return new ResponseEntity<>(
+                secondLevelCacheStatistics.regions(),
+                HttpStatus.OK
+        );
+    }
+}
@@ -1,15 +1,40 @@
 package ch.cern.todo.controller;
 
+import ch.cern.todo.dto.BatchResult;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.FieldsPage;
+import ch.cern.todo.dto.TaskChanges;
 import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.dto.TaskImportResult;
+import ch.cern.todo.dto.TaskPage;
+import ch.cern.todo.dto.UpcomingTask;
+import ch.cern.todo.exception.MalformedImportException;
 import ch.cern.todo.model.Category;
 import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.TaskFilter;
+import ch.cern.todo.service.TaskExportService;
+import ch.cern.todo.service.TaskImportService;
 import ch.cern.todo.service.TaskService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @AllArgsConstructor
@@ -18,6 +43,9 @@ import java.util.List;
 public class TaskController {
 
     private final TaskService taskService;
+    private final TaskImportService taskImportService;
+    private final TaskExportService taskExportService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<Task> createTask(@Valid @RequestBody TaskDto taskDto) {
@@ -29,11 +57,36 @@ public class TaskController {
         );
     }
 
+    /*
+    Items are validated one by one (no @Valid) so that an invalid task is reported
+    in its result instead of rejecting the whole import.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<TaskImportResult>> importTasks(@RequestBody List<TaskDto> taskDtos) {
+        return new ResponseEntity<>(
+                taskImportService.importTasks(taskDtos),
+                HttpStatus.OK
+        );
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<TaskImportResult>> importNdjsonTasks(InputStream body) throws IOException {
+        List<TaskDto> taskDtos;
+        try {
+            taskDtos = objectMapper.readerFor(TaskDto.class).<TaskDto>readValues(body).readAll();
+        } catch (JsonProcessingException ex) {
+            throw new MalformedImportException("Malformed NDJSON import : " + ex.getOriginalMessage());
+        }
+        return importTasks(taskDtos);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Task> updateTask(@Valid @RequestBody TaskDto taskDto, @PathVariable Long id) {
+        Task task = Task.create(id, taskDto.getName(), taskDto.getDescription(), taskDto.getDeadline());
+        task.setVersion(taskDto.getVersion());
         return new ResponseEntity<>(
                 taskService.updateTask(
-                        Task.create(id, taskDto.getName(), taskDto.getDescription(), taskDto.getDeadline()),
+                        task,
                         Category.create(taskDto.getCategoryDto().getName(), taskDto.getCategoryDto().getDescription())),
                 HttpStatus.OK
         );
@@ -41,23 +94,125 @@ public class TaskController {
 
     @GetMapping("/{id}")
     public ResponseEntity<Task> findTask(@PathVariable Long id) {
+        Task task = taskService.findTaskById(id);
+        // with a matching If-None-Match Spring MVC answers 304 and skips the serialization of the body
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETags.of(task));
+        Instant lastModified = ETags.lastModified(task);
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return response.body(task);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResult<Task>> findTasks(@RequestParam List<Long> ids) {
         return new ResponseEntity<>(
-                taskService.findTaskById(id),
+                taskService.findTasksByIds(ids),
                 HttpStatus.OK
         );
     }
 
     @GetMapping
-    public ResponseEntity<List<Task>> findAllTasks() {
+    public ResponseEntity<TaskPage> findAllTasks(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueAfter,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueBefore,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String categoryName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        TaskFilter filter = new TaskFilter(dueAfter, dueBefore, categoryId, categoryName);
+        // the version of the tables is checked before any task is loaded
+        String eTag = ETags.of(taskService.listVersions(), filter, cursor, limit);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(taskService.retrieveTasks(filter, cursor, limit));
+    }
+
+    /*
+    Listing restricted to the fields= parameter, e.g. fields=id,name,deadline,category.name:
+    only those columns are selected and serialized.
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<FieldsPage> findAllTaskFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueAfter,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime dueBefore,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String categoryName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        TaskFilter filter = new TaskFilter(dueAfter, dueBefore, categoryId, categoryName);
+        String eTag = ETags.of(taskService.listVersions(), filter, cursor, limit, fields);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(taskService.retrieveTaskFields(filter, cursor, limit, fields));
+    }
+
+    /*
+    Delta sync: changes since the token of the previous sync, or everything without one.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<TaskChanges> findTaskChanges(@RequestParam(required = false) String since,
+                                                       @RequestParam(required = false) Integer limit) {
         return new ResponseEntity<>(
-                taskService.retrieveAllTasks(),
+                taskService.findChangesSince(since, limit),
                 HttpStatus.OK
         );
     }
 
+    /*
+    Next due tasks, by deadline then id, read from memory.
+     */
+    @GetMapping("/upcoming")
+    public ResponseEntity<List<UpcomingTask>> findUpcomingTasks(@RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(
+                taskService.findUpcomingTasks(limit),
+                HttpStatus.OK
+        );
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTasks() {
+        StreamingResponseBody body = outputStream -> {
+            // rows are written into the generator buffer, flushing each of them would cost a write per row
+            ObjectWriter writer = objectMapper.writerFor(Task.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            JsonGenerator generator = objectMapper.createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            taskExportService.exportTasks(task -> {
+                try {
+                    writer.writeValue(generator, task);
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
         taskService.deleteTaskById(id);
         return ResponseEntity.ok().build();
     }
+
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<List<DeleteResult>> deleteTasks(@RequestParam List<Long> ids) {
+        return new ResponseEntity<>(
+                taskService.deleteTasksByIds(ids),
+                HttpStatus.OK
+        );
+    }
 }
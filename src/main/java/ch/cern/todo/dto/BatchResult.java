@@ -0,0 +1,14 @@
+package ch.cern.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+public class BatchResult<T> {
+    // found items, in the order of the requested ids
+    private List<T> items;
+    private List<Long> missingIds;
+}
@@ -0,0 +1,55 @@
+package ch.cern.todo.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/*
+State of an asynchronous category deletion, written by the job thread and read by the status requests.
+ */
+@Getter
+public class CategoryDeletionJob {
+    private final String id;
+    private final Long categoryId;
+    // tasks of the category when the job was submitted, tasks added later are deleted too
+    private final long totalTasks;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile Status status = Status.PENDING;
+    private volatile long deletedTasks;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public CategoryDeletionJob(String id, Long categoryId, long totalTasks) {
+        this.id = id;
+        this.categoryId = categoryId;
+        this.totalTasks = totalTasks;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    // only called by the job thread, the non atomic increment is safe
+    public void progress(int deleted) {
+        deletedTasks += deleted;
+    }
+
+    public void complete() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -17,4 +17,7 @@ public class CategoryDto {
 
     @ByteSize(max = 500, message = "Category description byte size should not exceed 500 bytes")
     private String description;
+
+    // expected version on updates, the update is rejected when the row changed in between
+    private Long version;
 }
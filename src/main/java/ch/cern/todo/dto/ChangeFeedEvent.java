@@ -0,0 +1,20 @@
+package ch.cern.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+One event of the change feed, the sequence is its SSE id and the reconnection cursor.
+Names are "task.created", "category.deleted"... and "reset" when the cursor cannot be replayed.
+Changes of several tasks at once are a single event without id: "task.batch" with the ids by change type,
+"task.overdue" with the ids of the tasks passed overdue.
+ */
+@AllArgsConstructor
+@Getter
+public class ChangeFeedEvent {
+    private long sequence;
+    private String name;
+    private Long id;
+    // the created or updated entity, null for deletions, the ids of a batch
+    private Object data;
+}
@@ -0,0 +1,30 @@
+package ch.cern.todo.dto;
+
+import ch.cern.todo.model.Task;
+import ch.cern.todo.model.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/*
+A task as returned by the delta sync. The category is only referenced by its id: renaming or deleting a category
+does not move the change_seq of its tasks, an embedded copy would stay stale on the clients.
+Categories are read from /api/categories, which is revalidated cheaply with its ETag.
+ */
+@AllArgsConstructor
+@Getter
+public class ChangedTask {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDateTime deadline;
+    private TaskStatus status;
+    private Long version;
+    private Long categoryId;
+
+    public static ChangedTask of(Task task) {
+        return new ChangedTask(task.getId(), task.getName(), task.getDescription(), task.getDeadline(),
+                task.getStatus(), task.getVersion(), task.getCategory() == null ? null : task.getCategory().getId());
+    }
+}
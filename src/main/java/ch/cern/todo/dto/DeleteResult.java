@@ -0,0 +1,27 @@
+package ch.cern.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class DeleteResult {
+    private Long id;
+    private Status status;
+
+    public static DeleteResult deleted(Long id) {
+        return new DeleteResult(id, Status.DELETED);
+    }
+
+    public static DeleteResult notFound(Long id) {
+        return new DeleteResult(id, Status.NOT_FOUND);
+    }
+
+    public static DeleteResult withTasks(Long id) {
+        return new DeleteResult(id, Status.HAS_TASKS);
+    }
+
+    public enum Status {
+        DELETED, NOT_FOUND, HAS_TASKS
+    }
+}
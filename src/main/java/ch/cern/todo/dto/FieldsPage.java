@@ -0,0 +1,17 @@
+package ch.cern.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+Page of a listing restricted to the fields= parameter, items only hold the requested fields.
+ */
+@AllArgsConstructor
+@Getter
+public class FieldsPage {
+    private List<Map<String, Object>> items;
+    private String nextCursor;
+}
@@ -0,0 +1,13 @@
+package ch.cern.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class ReassignResult {
+    private Long sourceId;
+    private Long targetId;
+    private int movedTasks;
+    private boolean sourceDeleted;
+}
@@ -0,0 +1,21 @@
+package ch.cern.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/*
+Tasks created or updated and ids of the tasks deleted since the requested token.
+Changes may be returned again after next, clients apply them idempotently.
+hasMore is only set when next moved past every returned change: changes too recent to be settled
+are left for a later sync instead of being requested again right away.
+ */
+@AllArgsConstructor
+@Getter
+public class TaskChanges {
+    private List<ChangedTask> changed;
+    private List<Long> deleted;
+    private String next;
+    private boolean hasMore;
+}
@@ -33,4 +33,7 @@ public class TaskDto {
     @NotNull(message = "Task category cannot be null")
     @JsonProperty("category")
     private CategoryDto categoryDto;
+
+    // expected version on updates, the update is rejected when the row changed in between
+    private Long version;
 }
@@ -0,0 +1,28 @@
+package ch.cern.todo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Collections;
+import java.util.List;
+
+@AllArgsConstructor
+@Data
+public class TaskImportResult {
+    private int index;
+    private Status status;
+    private Long id;
+    private List<String> errors;
+
+    public static TaskImportResult created(int index, Long id) {
+        return new TaskImportResult(index, Status.CREATED, id, Collections.emptyList());
+    }
+
+    public static TaskImportResult failed(int index, List<String> errors) {
+        return new TaskImportResult(index, Status.FAILED, null, errors);
+    }
+
+    public enum Status {
+        CREATED, FAILED
+    }
+}
@@ -0,0 +1,14 @@
+package ch.cern.todo.dto;
+
+import ch.cern.todo.model.Task;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+public class TaskPage {
+    private List<Task> items;
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package ch.cern.todo.dto;
+
+import ch.cern.todo.model.Category;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/*
+A task as held by the upcoming task index, serialized like the task itself.
+ */
+@AllArgsConstructor
+@Getter
+public class UpcomingTask {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDateTime deadline;
+    private Long version;
+    private Category category;
+}
@@ -0,0 +1,29 @@
+package ch.cern.todo.event;
+
+import ch.cern.todo.model.Category;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+Published inside the writing transaction, listeners react to it after commit.
+The category is null for deletions.
+ */
+@AllArgsConstructor
+@Getter
+public class CategoryChangedEvent {
+    private final ChangeType type;
+    private final Long id;
+    private final Category category;
+
+    public static CategoryChangedEvent created(Category category) {
+        return new CategoryChangedEvent(ChangeType.CREATED, category.getId(), category);
+    }
+
+    public static CategoryChangedEvent updated(Category category) {
+        return new CategoryChangedEvent(ChangeType.UPDATED, category.getId(), category);
+    }
+
+    public static CategoryChangedEvent deleted(Long id) {
+        return new CategoryChangedEvent(ChangeType.DELETED, id, null);
+    }
+}
@@ -0,0 +1,5 @@
+package ch.cern.todo.event;
+
+public enum ChangeType {
+    CREATED, UPDATED, DELETED
+}
@@ -0,0 +1,29 @@
+package ch.cern.todo.event;
+
+import ch.cern.todo.model.Task;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+Published by the task write path, listeners react to it after commit.
+The task is null for deletions.
+ */
+@AllArgsConstructor
+@Getter
+public class TaskChangedEvent {
+    private final ChangeType type;
+    private final Long id;
+    private final Task task;
+
+    public static TaskChangedEvent created(Task task) {
+        return new TaskChangedEvent(ChangeType.CREATED, task.getId(), task);
+    }
+
+    public static TaskChangedEvent updated(Task task) {
+        return new TaskChangedEvent(ChangeType.UPDATED, task.getId(), task);
+    }
+
+    public static TaskChangedEvent deleted(Long id) {
+        return new TaskChangedEvent(ChangeType.DELETED, id, null);
+    }
+}
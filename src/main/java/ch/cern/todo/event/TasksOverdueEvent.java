@@ -0,0 +1,15 @@
+package ch.cern.todo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/*
+Published by the overdue sweeper inside the transaction flipping the tasks, listeners react to it after commit.
+ */
+@AllArgsConstructor
+@Getter
+public class TasksOverdueEvent {
+    private final List<Long> ids;
+}
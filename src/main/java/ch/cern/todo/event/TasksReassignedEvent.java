@@ -0,0 +1,15 @@
+package ch.cern.todo.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+Published when every task of the source category is moved to the target one by a single set-based update,
+which produces no TaskChangedEvent per task. Listeners react to it after commit.
+ */
+@AllArgsConstructor
+@Getter
+public class TasksReassignedEvent {
+    private final Long sourceId;
+    private final Long targetId;
+}
@@ -0,0 +1,8 @@
+package ch.cern.todo.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
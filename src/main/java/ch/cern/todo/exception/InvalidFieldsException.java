@@ -0,0 +1,8 @@
+package ch.cern.todo.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ch.cern.todo.exception;
+
+public class InvalidReassignmentException extends RuntimeException {
+
+    public InvalidReassignmentException(String message) {
+        super(message);
+    }
+}
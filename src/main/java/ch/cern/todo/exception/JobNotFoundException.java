@@ -0,0 +1,8 @@
+package ch.cern.todo.exception;
+
+public class JobNotFoundException extends RuntimeException {
+
+    public JobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ch.cern.todo.exception;
+
+public class MalformedImportException extends RuntimeException {
+
+    public MalformedImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ch.cern.todo.exception;
+
+public class StaleVersionException extends RuntimeException {
+
+    public StaleVersionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ch.cern.todo.exception;
+
+public class TooManyIdsException extends RuntimeException {
+
+    public TooManyIdsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,260 @@
+package ch.cern.todo.feed;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.ChangeFeedEvent;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.ChangeType;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.event.TasksOverdueEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Fans committed task and category changes out to the SSE subscribers.
+Publishing never blocks: each subscriber has a bounded queue drained by its own sender (a virtual thread),
+a subscriber whose queue is full is too slow and gets disconnected, it reconnects with Last-Event-ID.
+The last events are kept in a ring to replay them on reconnection.
+ */
+@Component
+public class ChangeFeed implements MeterBinder {
+
+    private final TodoProperties todoProperties;
+    private final Executor senders;
+    // guards the sequence, the history and the order of the events in the subscriber queues
+    private final Object lock = new Object();
+    private final Deque<ChangeFeedEvent> history = new ArrayDeque<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong slowSubscriberDisconnects = new AtomicLong();
+    private long sequence;
+
+    @Autowired
+    public ChangeFeed(TodoProperties todoProperties) {
+        this(todoProperties, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    ChangeFeed(TodoProperties todoProperties, Executor senders) {
+        this.todoProperties = todoProperties;
+        this.senders = senders;
+    }
+
+    /*
+    The changes of a transaction are collected and published once it commits, in a single "task.batch" event
+    when there are several of them: an import chunk or a deletion batch would otherwise fill the subscriber queues.
+    The task write path does not always run in a transaction, its events are then published right after the write.
+     */
+    @EventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingTaskChanges().add(event);
+        } else {
+            publish("task", event.getType(), event.getId(), event.getTask());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        publish("category", event.getType(), event.getId(), event.getCategory());
+    }
+
+    @TransactionalEventListener
+    public void onTasksOverdue(TasksOverdueEvent event) {
+        publish("task.overdue", null, event.getIds());
+    }
+
+    /*
+    Registers the emitter, after replaying the events following lastEventId when it is given.
+     */
+    public void subscribe(SseEmitter emitter, Long lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscriber.close());
+        emitter.onError(error -> subscriber.close());
+        emitter.onTimeout(emitter::complete);
+        synchronized (lock) {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.scheduleDrain();
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("todo.change.feed.subscribers", subscribers, List::size)
+                .register(registry);
+        FunctionCounter.builder("todo.change.feed.slow.disconnects", slowSubscriberDisconnects, AtomicLong::get)
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (senders instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void publish(String entity, ChangeType type, Long id, Object data) {
+        publish(entity + "." + type.name().toLowerCase(Locale.ROOT), id, data);
+    }
+
+    private void publish(String name, Long id, Object data) {
+        synchronized (lock) {
+            ChangeFeedEvent event = new ChangeFeedEvent(++sequence, name, id, data);
+            history.addLast(event);
+            if (history.size() > todoProperties.getChangeFeed().getHistorySize()) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.offer(event)) {
+                    subscriber.scheduleDrain();
+                } else {
+                    slowSubscriberDisconnects.incrementAndGet();
+                    subscriber.disconnect();
+                }
+            }
+        }
+    }
+
+    private List<TaskChangedEvent> pendingTaskChanges() {
+        @SuppressWarnings("unchecked")
+        List<TaskChangedEvent> pending = (List<TaskChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        List<TaskChangedEvent> changes = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, changes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publishTaskChanges(changes);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeed.this);
+            }
+        });
+        return changes;
+    }
+
+    private void publishTaskChanges(List<TaskChangedEvent> changes) {
+        if (changes.size() == 1) {
+            TaskChangedEvent change = changes.get(0);
+            publish("task", change.getType(), change.getId(), change.getTask());
+            return;
+        }
+        Map<String, List<Long>> ids = new LinkedHashMap<>();
+        for (TaskChangedEvent change : changes) {
+            ids.computeIfAbsent(change.getType().name().toLowerCase(Locale.ROOT), type -> new ArrayList<>())
+                    .add(change.getId());
+        }
+        publish("task.batch", null, ids);
+    }
+
+    private void replay(Subscriber subscriber, long lastEventId) {
+        ChangeFeedEvent oldest = history.peekFirst();
+        long firstAvailable = oldest == null ? sequence + 1 : oldest.getSequence();
+        // events were dropped from the ring, the id was given by a previous run of the application,
+        // or the backlog would not fit in the buffer and the next publish would drop the subscriber as slow:
+        // the client has to reload before following the feed again
+        if (lastEventId + 1 < firstAvailable || lastEventId > sequence
+                || sequence - lastEventId > todoProperties.getChangeFeed().getBufferSize()) {
+            subscriber.queue.add(new ChangeFeedEvent(sequence, "reset", null, null));
+            return;
+        }
+        for (ChangeFeedEvent event : history) {
+            if (event.getSequence() > lastEventId) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final LinkedBlockingQueue<ChangeFeedEvent> queue = new LinkedBlockingQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // only called under the feed lock, the size cannot grow concurrently
+        private boolean offer(ChangeFeedEvent event) {
+            if (queue.size() >= todoProperties.getChangeFeed().getBufferSize()) {
+                return false;
+            }
+            return queue.add(event);
+        }
+
+        private void scheduleDrain() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                ChangeFeedEvent event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.getSequence()))
+                            .name(event.getName())
+                            .data(event));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client went away or the emitter is already completed
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // events queued while the drain was finishing
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void disconnect() {
+            close();
+            // completing waits for a send in progress, which is exactly what a slow subscriber is stuck in
+            senders.execute(emitter::complete);
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
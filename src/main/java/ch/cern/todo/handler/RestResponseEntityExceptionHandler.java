@@ -4,7 +4,16 @@ import ch.cern.todo.dto.Error;
 import ch.cern.todo.exception.CategoryAlreadyExistException;
 import ch.cern.todo.exception.CategoryNotFoundException;
 import ch.cern.todo.exception.CategoryWithAssociatedTasksException;
+import ch.cern.todo.exception.InvalidCursorException;
+import ch.cern.todo.exception.InvalidFieldsException;
+import ch.cern.todo.exception.InvalidReassignmentException;
+import ch.cern.todo.exception.JobNotFoundException;
+import ch.cern.todo.exception.MalformedImportException;
+import ch.cern.todo.exception.StaleVersionException;
 import ch.cern.todo.exception.TaskNotFoundException;
+import ch.cern.todo.exception.TooManyIdsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -20,17 +29,30 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 import java.time.LocalDateTime;
 import java.util.Collections;
 
+@AllArgsConstructor
 @RestControllerAdvice
 public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
     @ExceptionHandler(value = {
             CategoryNotFoundException.class, CategoryAlreadyExistException.class,
-            CategoryWithAssociatedTasksException.class, TaskNotFoundException.class})
+            CategoryWithAssociatedTasksException.class, TaskNotFoundException.class,
+            InvalidCursorException.class, MalformedImportException.class, TooManyIdsException.class,
+            InvalidReassignmentException.class, JobNotFoundException.class, InvalidFieldsException.class})
     protected ResponseEntity<Error> handleBusinessException(RuntimeException ex) {
+        meterRegistry.counter("todo.business.exceptions", "exception", ex.getClass().getSimpleName()).increment();
         Error error = new Error(LocalDateTime.now(), HttpStatus.BAD_REQUEST.value(), Collections.singletonList(ex.getMessage()));
         return ResponseEntity.badRequest().body(error);
     }
 
+    @ExceptionHandler(value = {StaleVersionException.class})
+    protected ResponseEntity<Error> handleConflictException(RuntimeException ex) {
+        meterRegistry.counter("todo.business.exceptions", "exception", ex.getClass().getSimpleName()).increment();
+        Error error = new Error(LocalDateTime.now(), HttpStatus.CONFLICT.value(), Collections.singletonList(ex.getMessage()));
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     /*
     Overriding handleMethodArgumentNotValid from ResponseEntityExceptionHandler
     to change the user error response
@@ -1,8 +1,12 @@
 package ch.cern.todo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 @NoArgsConstructor
@@ -12,11 +16,15 @@ import java.util.Objects;
 @Builder
 @Entity
 @Table(name = "task_categories")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Category.CACHE_REGION)
 public class Category {
 
+    public static final String CACHE_REGION = "categories";
+    public static final String QUERY_CACHE_REGION = "category-queries";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_categories_seq")
-    @SequenceGenerator(name = "task_categories_seq", sequenceName = "task_categories_seq", allocationSize = 1)
+    @SequenceGenerator(name = "task_categories_seq", sequenceName = "task_categories_seq", allocationSize = 50)
     @Column(name = "category_id")
     private Long id;
 
@@ -26,6 +34,14 @@ public class Category {
     @Column(name = "category_description")
     private String description;
 
+    @Version
+    private Long version;
+
+    // maintained by the database, only known for rows read back from it
+    @JsonIgnore
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+
     public static Category create(String name, String description) {
         return Category.builder()
                 .name(name)
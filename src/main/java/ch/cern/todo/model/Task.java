@@ -1,5 +1,6 @@
 package ch.cern.todo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -17,7 +18,7 @@ public class Task {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
-    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 1)
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     @Column(name = "task_id")
     private Long id;
 
@@ -29,7 +30,29 @@ public class Task {
 
     private LocalDateTime deadline;
 
-    @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH, CascadeType.DETACH})
+    // OVERDUE once the deadline is passed (see OverdueSweeper), back to OPEN with the next update
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private TaskStatus status = TaskStatus.OPEN;
+
+    @Version
+    private Long version;
+
+    // maintained by the database, only known for rows read back from it
+    @JsonIgnore
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+
+    // position in the change sequence of the delta sync, maintained by the database as well
+    @JsonIgnore
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
+    /*
+    Categories are written explicitly by the services, tasks may point to cached detached copies.
+    LAZY so that every read path states its fetch plan (see TaskRepository) instead of issuing a select per category.
+     */
+    @ManyToOne(fetch = FetchType.LAZY, cascade = {CascadeType.REFRESH, CascadeType.DETACH})
     @JoinColumn(name = "category_id")
     private Category category;
 
@@ -0,0 +1,5 @@
+package ch.cern.todo.model;
+
+public enum TaskStatus {
+    OPEN, OVERDUE
+}
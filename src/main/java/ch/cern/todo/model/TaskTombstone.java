@@ -0,0 +1,34 @@
+package ch.cern.todo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/*
+Trace of a deleted task for the delta sync, written by TaskTombstoneRepository.recordDeletions.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Immutable
+@Entity
+@Table(name = "task_tombstones")
+public class TaskTombstone {
+
+    @Id
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+}
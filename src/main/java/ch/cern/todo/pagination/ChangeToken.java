@@ -0,0 +1,35 @@
+package ch.cern.todo.pagination;
+
+import ch.cern.todo.exception.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+Position of a client in the task change sequence, see TaskService.findChangesSince.
+Clients only see the encoded form, as for TaskCursor.
+ */
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class ChangeToken {
+
+    private final long changeSeq;
+
+    public static ChangeToken decode(String token) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            return new ChangeToken(Long.parseLong(key));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Invalid change token : " + token);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(changeSeq).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,48 @@
+package ch.cern.todo.pagination;
+
+import ch.cern.todo.exception.InvalidCursorException;
+import ch.cern.todo.model.Task;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+Position of the last task of a page in the (deadline, id) ordering.
+Clients only see the encoded form, so the key can change without breaking them.
+ */
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class TaskCursor {
+
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime deadline;
+    private final Long id;
+
+    public static TaskCursor after(Task task) {
+        return new TaskCursor(task.getDeadline(), task.getId());
+    }
+
+    public static TaskCursor decode(String token) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf(SEPARATOR);
+            return new TaskCursor(
+                    LocalDateTime.parse(key.substring(0, separator)),
+                    Long.valueOf(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new InvalidCursorException("Invalid page cursor : " + token);
+        }
+    }
+
+    public String encode() {
+        String key = deadline + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
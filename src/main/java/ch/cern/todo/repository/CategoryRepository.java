@@ -1,14 +1,66 @@
 package ch.cern.todo.repository;
 
 import ch.cern.todo.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    /*
+    Cached queries hold the ids of the matching categories, the entities come from their own region.
+    Any write to the table invalidates them.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Category.QUERY_CACHE_REGION)})
     Optional<Category> findCategoriesByName(String name);
-    boolean existsByName(String name);
-    boolean existsByNameAndIdNot(String name, Long id);
+
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Category.QUERY_CACHE_REGION)})
+    List<Category> findAll();
+
+    List<Category> findAllByNameIn(Collection<String> names);
+
+    @Query("select c.id from Category c where c.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select new ch.cern.todo.repository.TableVersion(count(c), max(c.id), sum(c.version)) from Category c")
+    TableVersion findTableVersion();
+
+    /*
+    Single statement update, returns the number of updated rows.
+    A null version updates whatever the current version is.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Category c set c.name = :name, c.description = :description, c.version = c.version + 1 " +
+            "where c.id = :id and (:version is null or c.version = :version)")
+    int updateCategory(Long id, String name, String description, Long version);
+
+    /*
+    Deletes the category only when no task refers to it, the check and the delete are a single statement.
+    Returns the number of deleted rows.
+     */
+    @Modifying
+    @Query("delete from Category c where c.id = :id " +
+            "and not exists (select t.id from Task t where t.category.id = :id)")
+    int deleteCategoryWithoutTasks(Long id);
+
+    @Modifying
+    @Query("delete from Category c where c.id in :ids " +
+            "and not exists (select t.id from Task t where t.category = c)")
+    int deleteCategoriesWithoutTasks(Collection<Long> ids);
 }
\ No newline at end of file
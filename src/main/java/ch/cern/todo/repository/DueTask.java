@@ -0,0 +1,18 @@
+package ch.cern.todo.repository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/*
+An open task waiting for its deadline in the overdue sweeper, ordered by deadline then id.
+ */
+public record DueTask(Long id, LocalDateTime deadline) implements Comparable<DueTask> {
+
+    private static final Comparator<DueTask> ORDER = Comparator.comparing(DueTask::deadline)
+            .thenComparing(DueTask::id);
+
+    @Override
+    public int compareTo(DueTask other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,70 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.exception.InvalidFieldsException;
+import lombok.Getter;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+Fields requested by the fields= parameter of a listing, as paths such as "name" or "category.name",
+a parent ("category") selects all of its children. Paths keep the order of the entity and rows keep
+its JSON shape, nested objects included, so a sparse row reads like the full one.
+ */
+@Getter
+public class FieldSelection {
+
+    private static final String SEPARATOR = ".";
+
+    private final List<String> paths;
+    private final String[][] names;
+
+    private FieldSelection(List<String> paths) {
+        this.paths = paths;
+        this.names = paths.stream().map(path -> path.split("\\.")).toArray(String[][]::new);
+    }
+
+    public static FieldSelection parse(String fields, List<String> allowedPaths) {
+        Set<String> requested = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (allowedPaths.stream().noneMatch(path -> selects(name, path))) {
+                throw new InvalidFieldsException("Unknown field : " + name);
+            }
+            requested.add(name);
+        }
+        List<String> paths = allowedPaths.stream()
+                .filter(path -> requested.stream().anyMatch(name -> selects(name, path)))
+                .toList();
+        if (paths.isEmpty()) {
+            throw new InvalidFieldsException("At least one field must be requested");
+        }
+        return new FieldSelection(paths);
+    }
+
+    /*
+    Builds the row from the values of the selected paths, in the order of getPaths().
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> toRow(List<?> values) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            Map<String, Object> parent = row;
+            for (int j = 0; j < names[i].length - 1; j++) {
+                parent = (Map<String, Object>) parent.computeIfAbsent(names[i][j], name -> new LinkedHashMap<>());
+            }
+            parent.put(names[i][names[i].length - 1], values.get(i));
+        }
+        return row;
+    }
+
+    private static boolean selects(String name, String path) {
+        return path.equals(name) || path.startsWith(name + SEPARATOR);
+    }
+}
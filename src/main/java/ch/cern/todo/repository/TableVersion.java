@@ -0,0 +1,8 @@
+package ch.cern.todo.repository;
+
+/*
+Cheap fingerprint of a whole table: ids come from a sequence and are never reused, so any insert raises maxId,
+any delete lowers the row count and any update raises the version sum.
+ */
+public record TableVersion(Long rows, Long maxId, Long versionSum) {
+}
@@ -0,0 +1,27 @@
+package ch.cern.todo.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/*
+Optional criteria of the task listing, null fields are ignored.
+dueAfter is inclusive and dueBefore exclusive.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+public class TaskFilter {
+    private LocalDateTime dueAfter;
+    private LocalDateTime dueBefore;
+    private Long categoryId;
+    private String categoryName;
+
+    public static TaskFilter none() {
+        return new TaskFilter();
+    }
+}
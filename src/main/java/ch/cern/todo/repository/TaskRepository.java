@@ -1,11 +1,106 @@
 package ch.cern.todo.repository;
 
+import ch.cern.todo.model.Category;
 import ch.cern.todo.model.Task;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
-    boolean existsByCategoryId(Long categoryId);
-}
\ No newline at end of file
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Task> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Task> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Task> findAllById(Iterable<Long> ids);
+
+    @Query("select t.id from Task t where t.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select t.id from Task t where t.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(Long categoryId, Pageable pageable);
+
+    long countByCategoryId(Long categoryId);
+
+    // walks the change_seq index from the client position, the category is only referenced by its id
+    @Query("select t from Task t where t.changeSeq > :changeSeq order by t.changeSeq")
+    List<Task> findChangedSince(long changeSeq, Limit limit);
+
+    // the open tasks of the sweeper window, read from the (status, deadline) index
+    @Query("select new ch.cern.todo.repository.DueTask(t.id, t.deadline) from Task t " +
+            "where t.status = ch.cern.todo.model.TaskStatus.OPEN and t.deadline > :from and t.deadline <= :until")
+    List<DueTask> findOpenDueBetween(LocalDateTime from, LocalDateTime until);
+
+    // open tasks already due when the sweeper starts, oldest first
+    @Query("select new ch.cern.todo.repository.DueTask(t.id, t.deadline) from Task t " +
+            "where t.status = ch.cern.todo.model.TaskStatus.OPEN and t.deadline <= :now order by t.deadline, t.id")
+    List<DueTask> findOpenDueBy(LocalDateTime now, Limit limit);
+
+    /*
+    Locks the candidates still open and due, so that a concurrent update moving the deadline waits for the sweep.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Task t " +
+            "where t.id in :ids and t.status = ch.cern.todo.model.TaskStatus.OPEN and t.deadline <= :now")
+    List<Task> lockOpenDue(Collection<Long> ids, LocalDateTime now);
+
+    /*
+    The representation changes, hence the new version: cached copies and listing versions are invalidated.
+     */
+    @Modifying
+    @Query("update Task t set t.status = ch.cern.todo.model.TaskStatus.OVERDUE, t.version = t.version + 1 " +
+            "where t.id in :ids")
+    int markOverdue(Collection<Long> ids);
+
+    @Query("select new ch.cern.todo.repository.TableVersion(count(t), max(t.id), sum(t.version)) from Task t")
+    TableVersion findTableVersion();
+
+    /*
+    Single statement update, returns the number of updated rows.
+    A null version updates whatever the current version is.
+    Deadlines are in the future, an overdue task is open again.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Task t set t.name = :name, t.description = :description, t.deadline = :deadline, " +
+            "t.category = :category, t.status = ch.cern.todo.model.TaskStatus.OPEN, t.version = t.version + 1 " +
+            "where t.id = :id and (:version is null or t.version = :version)")
+    int updateTask(Long id, String name, String description, LocalDateTime deadline, Category category, Long version);
+
+    /*
+    Single statement delete, returns the number of deleted rows.
+     */
+    @Modifying
+    @Query("delete from Task t where t.id = :id")
+    int deleteTask(Long id);
+
+    /*
+    Moves every task of the source category in one set-based update, returns the number of moved tasks.
+     */
+    @Modifying
+    @Query("update Task t set t.category = :target, t.version = t.version + 1 where t.category.id = :sourceId")
+    int reassignCategory(Long sourceId, Category target);
+
+    @Modifying
+    @Query("delete from Task t where t.id in :ids")
+    int deleteTasks(Collection<Long> ids);
+}
@@ -0,0 +1,41 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.model.Task;
+import ch.cern.todo.pagination.TaskCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TaskRepositoryCustom {
+
+    // paths of Task that a listing can select, see FieldSelection
+    List<String> FIELDS = List.of("id", "name", "description", "deadline", "status", "version",
+            "category.id", "category.name", "category.description", "category.version");
+
+    /*
+    Keyset page ordered by (deadline, id): returns up to limit tasks matching the filter strictly after the cursor,
+    or from the start when the cursor is null. The category name of the filter is not used here,
+    callers resolve it to an id first.
+     */
+    List<Task> findPage(TaskFilter filter, TaskCursor after, int limit);
+
+    /*
+    Same page as findPage, selecting only the given fields: no entity is built and
+    the category is only joined when one of its fields other than the id is requested.
+     */
+    List<TaskRow> findPageFields(TaskFilter filter, TaskCursor after, int limit, FieldSelection fields);
+
+    /*
+    All tasks with their category in id order, read fetchSize rows at a time.
+    Tasks are detached as they are consumed, so the persistence context does not grow with the table.
+    Must be consumed inside a transaction and closed.
+     */
+    Stream<Task> streamAll(int fetchSize);
+
+    /*
+    Tasks due from the given time, as projections read fetchSize rows at a time.
+    Must be consumed inside a transaction and closed.
+     */
+    Stream<TaskSummary> streamDueFrom(LocalDateTime from, int fetchSize);
+}
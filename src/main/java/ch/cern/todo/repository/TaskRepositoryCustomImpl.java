@@ -0,0 +1,96 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.model.Task;
+import ch.cern.todo.pagination.TaskCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    private static final String ORDER_BY = " order by t.deadline, t.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Task> findPage(TaskFilter filter, TaskCursor after, int limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        TypedQuery<Task> query = entityManager.createQuery(
+                "select t from Task t join fetch t.category" + where(filter, after, parameters) + ORDER_BY, Task.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<TaskRow> findPageFields(TaskFilter filter, TaskCursor after, int limit, FieldSelection fields) {
+        Map<String, Object> parameters = new HashMap<>();
+        // paths come from TaskRepositoryCustom.FIELDS, the deadline and the id are always read last to position the next page
+        StringJoiner select = new StringJoiner(", ", "select ", ", t.deadline, t.id from Task t");
+        fields.getPaths().forEach(path -> select.add("t." + path));
+        TypedQuery<Object[]> query = entityManager.createQuery(
+                select + where(filter, after, parameters) + ORDER_BY, Object[].class);
+        parameters.forEach(query::setParameter);
+        int columns = fields.getPaths().size();
+        return query.setMaxResults(limit).getResultList().stream()
+                .map(row -> new TaskRow(
+                        fields.toRow(Arrays.asList(row).subList(0, columns)),
+                        new TaskCursor((LocalDateTime) row[columns], (Long) row[columns + 1])))
+                .toList();
+    }
+
+    @Override
+    public Stream<Task> streamAll(int fetchSize) {
+        return entityManager.createQuery("select t from Task t join fetch t.category order by t.id", Task.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    @Override
+    public Stream<TaskSummary> streamDueFrom(LocalDateTime from, int fetchSize) {
+        return entityManager.createQuery("select new ch.cern.todo.repository.TaskSummary("
+                        + "t.id, t.name, t.description, t.deadline, t.version, t.category.id) "
+                        + "from Task t where t.deadline >= :from", TaskSummary.class)
+                .setParameter("from", from)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    /*
+    Predicates only use (category_id, deadline, task_id) so that the page is a range scan
+    on tasks_category_deadline_idx, or on tasks_deadline_id_idx when no category is given.
+     */
+    private static String where(TaskFilter filter, TaskCursor after, Map<String, Object> parameters) {
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        if (filter.getCategoryId() != null) {
+            where.add("t.category.id = :categoryId");
+            parameters.put("categoryId", filter.getCategoryId());
+        }
+        if (filter.getDueAfter() != null) {
+            where.add("t.deadline >= :dueAfter");
+            parameters.put("dueAfter", filter.getDueAfter());
+        }
+        if (filter.getDueBefore() != null) {
+            where.add("t.deadline < :dueBefore");
+            parameters.put("dueBefore", filter.getDueBefore());
+        }
+        if (after != null) {
+            // "deadline >= :deadline" keeps the keyset predicate a range scan
+            where.add("t.deadline >= :deadline and (t.deadline > :deadline or t.id > :id)");
+            parameters.put("deadline", after.getDeadline());
+            parameters.put("id", after.getId());
+        }
+        return where.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.pagination.TaskCursor;
+
+import java.util.Map;
+
+/*
+Selected fields of a task, with its position in the listing order for the next page.
+ */
+public record TaskRow(Map<String, Object> fields, TaskCursor cursor) {
+}
@@ -0,0 +1,10 @@
+package ch.cern.todo.repository;
+
+import java.time.LocalDateTime;
+
+/*
+Columns of a task without its category row, read as a projection: nothing is added to the persistence context.
+ */
+public record TaskSummary(Long id, String name, String description, LocalDateTime deadline, Long version,
+                          Long categoryId) {
+}
@@ -0,0 +1,14 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.model.TaskTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, Long>, TaskTombstoneRepositoryCustom {
+
+    List<TaskTombstone> findByChangeSeqGreaterThanOrderByChangeSeq(long changeSeq, Limit limit);
+}
@@ -0,0 +1,12 @@
+package ch.cern.todo.repository;
+
+import java.util.Collection;
+
+public interface TaskTombstoneRepositoryCustom {
+
+    /*
+    Records a tombstone for each of the tasks that still exist, in one statement.
+    Must run before their deletion, in the same transaction; returns the number of recorded tombstones.
+     */
+    int recordDeletions(Collection<Long> ids);
+}
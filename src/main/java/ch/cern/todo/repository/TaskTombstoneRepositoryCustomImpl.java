@@ -0,0 +1,30 @@
+package ch.cern.todo.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+
+import java.util.Collection;
+
+public class TaskTombstoneRepositoryCustomImpl implements TaskTombstoneRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /*
+    Native, the change sequence is given by the column default. Without declared query spaces Hibernate
+    cannot tell which tables a native write touches and evicts every second-level cache region and cached query,
+    the categories included. The statement is declared on the tables it reads and writes: the pending task writes
+    are flushed before it and only the cached results of these two tables are invalidated.
+     */
+    @Override
+    public int recordDeletions(Collection<Long> ids) {
+        return entityManager.createNativeQuery(
+                        "insert into task_tombstones (task_id) select task_id from tasks where task_id in (:ids)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("task_tombstones")
+                .addSynchronizedQuerySpace("tasks")
+                .setParameterList("ids", ids)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,8 @@
+package ch.cern.todo.service;
+
+import ch.cern.todo.dto.CategoryDeletionJob;
+
+public interface CategoryDeletionService {
+    CategoryDeletionJob startDeletion(Long categoryId);
+    CategoryDeletionJob findJob(String jobId);
+}
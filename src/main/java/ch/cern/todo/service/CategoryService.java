@@ -1,13 +1,23 @@
 package ch.cern.todo.service;
 
+import ch.cern.todo.dto.BatchResult;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.ReassignResult;
 import ch.cern.todo.model.Category;
+import ch.cern.todo.repository.TableVersion;
 
 import java.util.List;
+import java.util.Map;
 
 public interface CategoryService {
     Category findCategoryById(Long id);
+    BatchResult<Category> findCategoriesByIds(List<Long> ids);
     List<Category> retrieveAllCategories();
+    List<Map<String, Object>> retrieveAllCategoryFields(String fields);
+    List<TableVersion> listVersions();
     Category createCategory(Category category);
     Category updateCategory(Category category);
     void deleteCategoryById(Long id);
+    List<DeleteResult> deleteCategoriesByIds(List<Long> ids);
+    ReassignResult reassignTasks(Long sourceId, Long targetId, boolean deleteSource);
 }
@@ -0,0 +1,9 @@
+package ch.cern.todo.service;
+
+import ch.cern.todo.model.Task;
+
+import java.util.function.Consumer;
+
+public interface TaskExportService {
+    void exportTasks(Consumer<Task> consumer);
+}
@@ -0,0 +1,10 @@
+package ch.cern.todo.service;
+
+import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.dto.TaskImportResult;
+
+import java.util.List;
+
+public interface TaskImportService {
+    List<TaskImportResult> importTasks(List<TaskDto> tasks);
+}
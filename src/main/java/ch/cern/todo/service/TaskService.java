@@ -1,14 +1,28 @@
 package ch.cern.todo.service;
 
+import ch.cern.todo.dto.BatchResult;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.FieldsPage;
+import ch.cern.todo.dto.TaskChanges;
+import ch.cern.todo.dto.TaskPage;
+import ch.cern.todo.dto.UpcomingTask;
 import ch.cern.todo.model.Category;
 import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.TableVersion;
+import ch.cern.todo.repository.TaskFilter;
 
 import java.util.List;
 
 public interface TaskService {
     Task findTaskById(Long id);
-    List<Task> retrieveAllTasks();
+    BatchResult<Task> findTasksByIds(List<Long> ids);
+    TaskPage retrieveTasks(TaskFilter filter, String cursor, Integer limit);
+    FieldsPage retrieveTaskFields(TaskFilter filter, String cursor, Integer limit, String fields);
+    List<TableVersion> listVersions();
+    TaskChanges findChangesSince(String since, Integer limit);
+    List<UpcomingTask> findUpcomingTasks(Integer limit);
     Task createTask(Task task, Category category);
     Task updateTask(Task task, Category category);
     void deleteTaskById(Long id);
+    List<DeleteResult> deleteTasksByIds(List<Long> ids);
 }
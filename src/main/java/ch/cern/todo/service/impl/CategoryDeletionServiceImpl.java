@@ -0,0 +1,175 @@
+package ch.cern.todo.service.impl;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.CategoryDeletionJob;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.exception.CategoryNotFoundException;
+import ch.cern.todo.exception.JobNotFoundException;
+import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.repository.TaskTombstoneRepository;
+import ch.cern.todo.service.CategoryDeletionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/*
+Deletes a category together with its tasks in the background.
+Tasks go in batches, each batch is its own short transaction so that locks are released between batches
+and readers of the table are never blocked for the whole deletion.
+ */
+@Slf4j
+@Service
+public class CategoryDeletionServiceImpl implements CategoryDeletionService {
+
+    private final TaskRepository taskRepository;
+    private final TaskTombstoneRepository taskTombstoneRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TodoProperties todoProperties;
+    // a single thread, deletions run one after the other instead of competing for the same rows
+    private final ExecutorService executor;
+    private final Map<String, CategoryDeletionJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CategoryDeletionServiceImpl(TaskRepository taskRepository,
+                                       TaskTombstoneRepository taskTombstoneRepository,
+                                       CategoryRepository categoryRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       ApplicationEventPublisher eventPublisher,
+                                       TodoProperties todoProperties) {
+        this(taskRepository, taskTombstoneRepository, categoryRepository, transactionManager, eventPublisher, todoProperties,
+                Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "category-deletion")));
+    }
+
+    CategoryDeletionServiceImpl(TaskRepository taskRepository,
+                                TaskTombstoneRepository taskTombstoneRepository,
+                                CategoryRepository categoryRepository,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                TodoProperties todoProperties,
+                                ExecutorService executor) {
+        this.taskRepository = taskRepository;
+        this.taskTombstoneRepository = taskTombstoneRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.todoProperties = todoProperties;
+        this.executor = executor;
+    }
+
+    @Override
+    public synchronized CategoryDeletionJob startDeletion(Long categoryId) {
+        evictFinishedJobs();
+        // a second request for the same category follows the running job instead of starting another one
+        for (CategoryDeletionJob job : jobs.values()) {
+            if (job.getCategoryId().equals(categoryId) && !job.isFinished()) {
+                return job;
+            }
+        }
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new CategoryNotFoundException("Cannot find category with id : " + categoryId);
+        }
+        CategoryDeletionJob job = new CategoryDeletionJob(
+                UUID.randomUUID().toString(), categoryId, taskRepository.countByCategoryId(categoryId));
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            // shutting down, the job would stay pending forever
+            job.fail("Category deletion rejected, the application is shutting down");
+        }
+        return job;
+    }
+
+    @Override
+    public CategoryDeletionJob findJob(String jobId) {
+        CategoryDeletionJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException("Cannot find category deletion job with id : " + jobId);
+        }
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void run(CategoryDeletionJob job) {
+        job.start();
+        try {
+            int maxRounds = todoProperties.getCategoryDeletion().getMaxRounds();
+            boolean categoryDeleted = false;
+            for (int round = 0; round < maxRounds && !categoryDeleted; round++) {
+                int deleted;
+                do {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IllegalStateException("Category deletion interrupted");
+                    }
+                    deleted = transactionTemplate.execute(status -> deleteBatch(job.getCategoryId()));
+                    job.progress(deleted);
+                } while (deleted > 0);
+                // tasks added to the category meanwhile keep it in place, they go with another round of batches
+                categoryDeleted = transactionTemplate.execute(status -> deleteCategory(job.getCategoryId()));
+            }
+            if (!categoryDeleted) {
+                // tasks keep being added, the category is left in place rather than chased forever
+                throw new IllegalStateException("Category " + job.getCategoryId() + " still has tasks after "
+                        + maxRounds + " rounds of deletion");
+            }
+            job.complete();
+        } catch (RuntimeException | Error e) {
+            // any failure ends the job, its status is never left running
+            log.error("Deletion of category {} failed", job.getCategoryId(), e);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+    }
+
+    private int deleteBatch(Long categoryId) {
+        int batchSize = todoProperties.getCategoryDeletion().getBatchSize();
+        List<Long> ids = taskRepository.findIdsByCategoryId(categoryId, PageRequest.ofSize(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        taskTombstoneRepository.recordDeletions(ids);
+        int deleted = taskRepository.deleteTasks(ids);
+        ids.forEach(id -> eventPublisher.publishEvent(TaskChangedEvent.deleted(id)));
+        return deleted;
+    }
+
+    private boolean deleteCategory(Long categoryId) {
+        if (categoryRepository.deleteCategoryWithoutTasks(categoryId) == 1) {
+            eventPublisher.publishEvent(CategoryChangedEvent.deleted(categoryId));
+            return true;
+        }
+        // removed by someone else in the meantime
+        return !categoryRepository.existsById(categoryId);
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime limit = LocalDateTime.now().minus(todoProperties.getCategoryDeletion().getJobRetention());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(limit));
+    }
+}
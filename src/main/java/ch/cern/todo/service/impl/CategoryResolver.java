@@ -0,0 +1,80 @@
+package ch.cern.todo.service.impl;
+
+import ch.cern.todo.cache.CategoryCache;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.repository.CategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/*
+Get-or-create of the categories named by tasks, without a lock.
+The insert runs in its own short transaction, when a concurrent request inserted the same name first
+the unique constraint rejects ours and the committed row is read instead.
+Callers should not hold a transaction: the insert would need a second connection from the pool.
+ */
+@Component
+public class CategoryResolver {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryCache categoryCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CategoryResolver(CategoryRepository categoryRepository,
+                            CategoryCache categoryCache,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher) {
+        this.categoryRepository = categoryRepository;
+        this.categoryCache = categoryCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /*
+    Runs the write with the resolved category. The cached copy may belong to a category deleted meanwhile,
+    when the write is rejected by the database the name is invalidated and the write runs once more
+    with a freshly resolved category, any other violation fails again and is thrown.
+     */
+    public <T> T withCategory(Category category, Function<Category, T> write) {
+        try {
+            return write.apply(getOrCreate(category));
+        } catch (DataIntegrityViolationException e) {
+            categoryCache.invalidate(category.getName());
+            return write.apply(getOrCreate(category));
+        }
+    }
+
+    public Category getOrCreate(Category category) {
+        for (int attempt = 1; ; attempt++) {
+            // served from the cache in the common case, a single select otherwise
+            Optional<Category> existingCategory = categoryCache.findByName(category.getName());
+            if (existingCategory.isPresent()) {
+                return existingCategory.get();
+            }
+            try {
+                return transactionTemplate.execute(status -> {
+                    Category createdCategory = categoryRepository.saveAndFlush(
+                            Category.create(category.getName(), category.getDescription()));
+                    eventPublisher.publishEvent(CategoryChangedEvent.created(createdCategory));
+                    return createdCategory;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // lost the race against another insert of the same name, its row is committed by now
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -1,67 +1,241 @@
 package ch.cern.todo.service.impl;
 
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.BatchResult;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.ReassignResult;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.TasksReassignedEvent;
 import ch.cern.todo.exception.CategoryAlreadyExistException;
 import ch.cern.todo.exception.CategoryNotFoundException;
 import ch.cern.todo.exception.CategoryWithAssociatedTasksException;
+import ch.cern.todo.exception.InvalidReassignmentException;
+import ch.cern.todo.exception.StaleVersionException;
+import ch.cern.todo.exception.TooManyIdsException;
 import ch.cern.todo.model.Category;
 import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.FieldSelection;
+import ch.cern.todo.repository.TableVersion;
 import ch.cern.todo.repository.TaskRepository;
 import ch.cern.todo.service.CategoryService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
 public class CategoryServiceImpl implements CategoryService {
 
+    // fields of the category listing, see retrieveAllCategoryFields
+    private static final Map<String, Function<Category, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("id", Category::getId);
+        FIELDS.put("name", Category::getName);
+        FIELDS.put("description", Category::getDescription);
+        FIELDS.put("version", Category::getVersion);
+    }
+
     private final CategoryRepository categoryRepository;
     private final TaskRepository taskRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TodoProperties todoProperties;
 
     @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.find"})
     public Category findCategoryById(Long id) {
         return categoryRepository.findById(id)
                 .orElseThrow(() -> new CategoryNotFoundException("Cannot find category with id : " + id));
     }
 
     @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.find.batch"})
+    public BatchResult<Category> findCategoriesByIds(List<Long> ids) {
+        List<Long> requestedIds = requestedIds(ids);
+        Map<Long, Category> categoriesById = categoryRepository.findAllById(requestedIds).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        List<Category> categories = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            Category category = categoriesById.get(id);
+            if (category == null) {
+                missingIds.add(id);
+            } else {
+                categories.add(category);
+            }
+        }
+        return new BatchResult<>(categories, missingIds);
+    }
+
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.list"})
     public List<Category> retrieveAllCategories() {
         return categoryRepository.findAll();
     }
 
+    /*
+    The listing is served by the query cache, the fields are picked from the cached categories
+    so that only the payload shrinks, without another query.
+     */
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.list.fields"})
+    public List<Map<String, Object>> retrieveAllCategoryFields(String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, List.copyOf(FIELDS.keySet()));
+        List<Function<Category, Object>> getters = selection.getPaths().stream().map(FIELDS::get).toList();
+        return categoryRepository.findAll().stream()
+                .map(category -> selection.toRow(getters.stream().map(getter -> getter.apply(category)).toList()))
+                .toList();
+    }
+
     @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.list.version"})
+    public List<TableVersion> listVersions() {
+        return List.of(categoryRepository.findTableVersion());
+    }
+
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.create"})
     @Transactional
     public Category createCategory(Category category) {
-        if (categoryRepository.existsByName(category.getName())) {
+        Category createdCategory;
+        try {
+            createdCategory = categoryRepository.saveAndFlush(category);
+        } catch (DataIntegrityViolationException e) {
+            // the unique constraint replaces a select checking for a duplicate, and holds under concurrent creations
             throw new CategoryAlreadyExistException("Category with name : " + category.getName() + " already exist");
         }
-        return categoryRepository.saveAndFlush(category);
+        eventPublisher.publishEvent(CategoryChangedEvent.created(createdCategory));
+        return createdCategory;
     }
 
     @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.update"})
     @Transactional
     public Category updateCategory(Category category) {
-        if (!categoryRepository.existsById(category.getId())) {
-            throw new CategoryNotFoundException("Cannot find category with id : " + category.getId());
-        }
-        if (categoryRepository.existsByNameAndIdNot(category.getName(), category.getId())) {
+        int updatedRows;
+        try {
+            updatedRows = categoryRepository.updateCategory(
+                    category.getId(), category.getName(), category.getDescription(), category.getVersion());
+        } catch (DataIntegrityViolationException e) {
+            // the unique constraint on the name replaces a select checking for a duplicate
             throw new CategoryAlreadyExistException("Category with name : " + category.getName() + " already taking");
         }
+        if (updatedRows == 0) {
+            // the extra select only runs on the failure path, to tell a missing row from a concurrent update
+            if (category.getVersion() != null && categoryRepository.existsById(category.getId())) {
+                throw new StaleVersionException("Category with id : " + category.getId()
+                        + " was modified, expected version : " + category.getVersion());
+            }
+            throw new CategoryNotFoundException("Cannot find category with id : " + category.getId());
+        }
 
-        return categoryRepository.saveAndFlush(category);
+        Category updatedCategory = Category.create(category.getId(), category.getName(), category.getDescription());
+        updatedCategory.setVersion(nextVersion(category.getVersion()));
+        eventPublisher.publishEvent(CategoryChangedEvent.updated(updatedCategory));
+        return updatedCategory;
     }
 
     @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.delete"})
     @Transactional
     public void deleteCategoryById(Long id) {
-        if (!categoryRepository.existsById(id)) {
+        if (categoryRepository.deleteCategoryWithoutTasks(id) == 0) {
+            // the extra select only runs on the failure path, to tell a missing row from one still in use
+            if (categoryRepository.existsById(id)) {
+                throw new CategoryWithAssociatedTasksException("Cannot remove category with tasks associated to it.");
+            }
             throw new CategoryNotFoundException("Cannot find category with id : " + id);
         }
-        if (taskRepository.existsByCategoryId(id)) {
-            throw new CategoryWithAssociatedTasksException("Cannot remove category with tasks associated to it.");
+        eventPublisher.publishEvent(CategoryChangedEvent.deleted(id));
+    }
+
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.delete.batch"})
+    @Transactional
+    public List<DeleteResult> deleteCategoriesByIds(List<Long> ids) {
+        List<Long> requestedIds = requestedIds(ids);
+        if (requestedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> existingIds = new HashSet<>(categoryRepository.findExistingIds(requestedIds));
+        Set<Long> remainingIds = Collections.emptySet();
+        if (!existingIds.isEmpty()) {
+            categoryRepository.deleteCategoriesWithoutTasks(existingIds);
+            // whatever survived the guarded delete is still referenced by tasks
+            remainingIds = new HashSet<>(categoryRepository.findExistingIds(existingIds));
+        }
+        List<DeleteResult> results = new ArrayList<>();
+        for (Long id : requestedIds) {
+            if (!existingIds.contains(id)) {
+                results.add(DeleteResult.notFound(id));
+            } else if (remainingIds.contains(id)) {
+                results.add(DeleteResult.withTasks(id));
+            } else {
+                results.add(DeleteResult.deleted(id));
+                eventPublisher.publishEvent(CategoryChangedEvent.deleted(id));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "category.reassign"})
+    @Transactional
+    public ReassignResult reassignTasks(Long sourceId, Long targetId, boolean deleteSource) {
+        if (sourceId.equals(targetId)) {
+            throw new InvalidReassignmentException("Cannot reassign tasks of category : " + sourceId + " to itself");
+        }
+        List<Long> existingIds = categoryRepository.findExistingIds(List.of(sourceId, targetId));
+        for (Long id : List.of(sourceId, targetId)) {
+            if (!existingIds.contains(id)) {
+                throw new CategoryNotFoundException("Cannot find category with id : " + id);
+            }
+        }
+
+        int movedTasks = taskRepository.reassignCategory(sourceId, categoryRepository.getReferenceById(targetId));
+        if (movedTasks > 0) {
+            eventPublisher.publishEvent(new TasksReassignedEvent(sourceId, targetId));
+        }
+        if (deleteSource) {
+            // a task added to the source concurrently fails the delete and rolls the move back
+            if (categoryRepository.deleteCategoryWithoutTasks(sourceId) == 0) {
+                throw new CategoryWithAssociatedTasksException("Cannot remove category with tasks associated to it.");
+            }
+            eventPublisher.publishEvent(CategoryChangedEvent.deleted(sourceId));
+        }
+        return new ReassignResult(sourceId, targetId, movedTasks, deleteSource);
+    }
+
+    /*
+    Without an expected version the row was updated whatever its version was, so the new one is unknown.
+     */
+    private static Long nextVersion(Long version) {
+        return version == null ? null : version + 1;
+    }
+
+    /*
+    Distinct requested ids, capped so that a single request cannot build an unbounded IN list.
+     */
+    private List<Long> requestedIds(List<Long> ids) {
+        List<Long> requestedIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        int maxIds = todoProperties.getBatch().getMaxIds();
+        if (requestedIds.size() > maxIds) {
+            throw new TooManyIdsException("Cannot process more than " + maxIds + " ids at once");
         }
-        categoryRepository.deleteById(id);
+        return requestedIds;
     }
 }
@@ -0,0 +1,34 @@
+package ch.cern.todo.service.impl;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.service.TaskExportService;
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@AllArgsConstructor
+@Service
+public class TaskExportServiceImpl implements TaskExportService {
+
+    private final TaskRepository taskRepository;
+    private final TodoProperties todoProperties;
+
+    /*
+    Hands the tasks to the consumer one at a time while the cursor is open,
+    so memory use does not depend on the number of tasks.
+     */
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.export"})
+    @Transactional(readOnly = true)
+    public void exportTasks(Consumer<Task> consumer) {
+        try (Stream<Task> tasks = taskRepository.streamAll(todoProperties.getExport().getFetchSize())) {
+            tasks.forEach(consumer);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ch.cern.todo.service.impl;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.dto.TaskImportResult;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.service.TaskImportService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+@Service
+public class TaskImportServiceImpl implements TaskImportService {
+
+    private final TaskRepository taskRepository;
+    private final CategoryRepository categoryRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TodoProperties todoProperties;
+
+    public TaskImportServiceImpl(TaskRepository taskRepository,
+                                 CategoryRepository categoryRepository,
+                                 Validator validator,
+                                 PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventPublisher,
+                                 TodoProperties todoProperties) {
+        this.taskRepository = taskRepository;
+        this.categoryRepository = categoryRepository;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.todoProperties = todoProperties;
+    }
+
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.import"})
+    public List<TaskImportResult> importTasks(List<TaskDto> tasks) {
+        int chunkSize = todoProperties.getBulkImport().getChunkSize();
+        TaskImportResult[] results = new TaskImportResult[tasks.size()];
+        // categories resolved by already committed chunks, linked detached as on the single task write path
+        Map<String, Category> categories = new HashMap<>();
+        List<Integer> chunk = new ArrayList<>(chunkSize);
+
+        for (int index = 0; index < tasks.size(); index++) {
+            List<String> errors = validate(tasks.get(index));
+            if (!errors.isEmpty()) {
+                results[index] = TaskImportResult.failed(index, errors);
+                continue;
+            }
+            chunk.add(index);
+            if (chunk.size() == chunkSize) {
+                writeChunk(tasks, chunk, categories, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(tasks, chunk, categories, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private List<String> validate(TaskDto taskDto) {
+        if (taskDto == null) {
+            return Collections.singletonList("Task cannot be null");
+        }
+        return validator.validate(taskDto).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList();
+    }
+
+    private void writeChunk(List<TaskDto> tasks, List<Integer> chunk, Map<String, Category> categories,
+                            TaskImportResult[] results) {
+        try {
+            List<Long> ids = write(tasks, chunk, categories);
+            for (int i = 0; i < chunk.size(); i++) {
+                results[chunk.get(i)] = TaskImportResult.created(chunk.get(i), ids.get(i));
+            }
+        } catch (DataAccessException ex) {
+            // the chunk was rolled back: replay it one task per transaction to isolate the faulty rows
+            for (Integer index : chunk) {
+                try {
+                    Long id = write(tasks, Collections.singletonList(index), categories).get(0);
+                    results[index] = TaskImportResult.created(index, id);
+                } catch (DataAccessException rowEx) {
+                    results[index] = TaskImportResult.failed(index,
+                            Collections.singletonList(rowEx.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+    }
+
+    private List<Long> write(List<TaskDto> tasks, List<Integer> chunk, Map<String, Category> categories) {
+        Map<String, Category> resolved = new HashMap<>();
+        List<Long> ids = transactionTemplate.execute(status -> {
+            resolveCategories(tasks, chunk, categories, resolved);
+            List<Task> entities = chunk.stream()
+                    .map(tasks::get)
+                    .map(taskDto -> {
+                        String categoryName = taskDto.getCategoryDto().getName();
+                        return Task.linkToCategory(
+                                Task.create(taskDto.getName(), taskDto.getDescription(), taskDto.getDeadline()),
+                                categories.getOrDefault(categoryName, resolved.get(categoryName)));
+                    })
+                    .toList();
+            taskRepository.saveAll(entities);
+            taskRepository.flush();
+            // delivered once the chunk is committed, dropped with it otherwise
+            entities.forEach(task -> eventPublisher.publishEvent(TaskChangedEvent.created(task)));
+            return entities.stream().map(Task::getId).toList();
+        });
+        // categories resolved in a rolled back chunk must be resolved again
+        categories.putAll(resolved);
+        return ids;
+    }
+
+    private void resolveCategories(List<TaskDto> tasks, List<Integer> chunk, Map<String, Category> categories,
+                                   Map<String, Category> resolved) {
+        Map<String, Category> missing = new LinkedHashMap<>();
+        for (Integer index : chunk) {
+            TaskDto taskDto = tasks.get(index);
+            String name = taskDto.getCategoryDto().getName();
+            if (!categories.containsKey(name)) {
+                missing.putIfAbsent(name, Category.create(name, taskDto.getCategoryDto().getDescription()));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (Category category : categoryRepository.findAllByNameIn(missing.keySet())) {
+            resolved.put(category.getName(), category);
+            missing.remove(category.getName());
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (Category category : categoryRepository.saveAll(missing.values())) {
+            resolved.put(category.getName(), category);
+            eventPublisher.publishEvent(CategoryChangedEvent.created(category));
+        }
+    }
+}
@@ -1,62 +1,290 @@
 package ch.cern.todo.service.impl;
 
-import ch.cern.todo.exception.CategoryNotFoundException;
+import ch.cern.todo.cache.CategoryCache;
+import ch.cern.todo.cache.UpcomingTaskIndex;
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.BatchResult;
+import ch.cern.todo.dto.ChangedTask;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.FieldsPage;
+import ch.cern.todo.dto.TaskChanges;
+import ch.cern.todo.dto.TaskPage;
+import ch.cern.todo.dto.UpcomingTask;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.exception.StaleVersionException;
 import ch.cern.todo.exception.TaskNotFoundException;
+import ch.cern.todo.exception.TooManyIdsException;
 import ch.cern.todo.model.Category;
 import ch.cern.todo.model.Task;
+import ch.cern.todo.model.TaskTombstone;
+import ch.cern.todo.pagination.ChangeToken;
+import ch.cern.todo.pagination.TaskCursor;
 import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.FieldSelection;
+import ch.cern.todo.repository.TableVersion;
+import ch.cern.todo.repository.TaskFilter;
 import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.repository.TaskRow;
+import ch.cern.todo.repository.TaskTombstoneRepository;
 import ch.cern.todo.service.TaskService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
 public class TaskServiceImpl implements TaskService {
 
     private final TaskRepository taskRepository;
+    private final TaskTombstoneRepository taskTombstoneRepository;
     private final CategoryRepository categoryRepository;
+    private final CategoryCache categoryCache;
+    private final CategoryResolver categoryResolver;
+    private final UpcomingTaskIndex upcomingTaskIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TodoProperties todoProperties;
 
     @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.find"})
     public Task findTaskById(Long id) {
         return taskRepository.findById(id)
                 .orElseThrow(() -> new TaskNotFoundException("Cannot find task with id : " + id));
     }
 
     @Override
-    public List<Task> retrieveAllTasks() {
-        return taskRepository.findAll();
+    @Timed(value = "todo.service", extraTags = {"operation", "task.find.batch"})
+    public BatchResult<Task> findTasksByIds(List<Long> ids) {
+        List<Long> requestedIds = requestedIds(ids);
+        Map<Long, Task> tasksById = taskRepository.findAllById(requestedIds).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+        List<Task> tasks = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            Task task = tasksById.get(id);
+            if (task == null) {
+                missingIds.add(id);
+            } else {
+                tasks.add(task);
+            }
+        }
+        return new BatchResult<>(tasks, missingIds);
     }
 
     @Override
-    @Transactional
+    @Timed(value = "todo.service", extraTags = {"operation", "task.list"})
+    public TaskPage retrieveTasks(TaskFilter filter, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        TaskCursor after = cursor == null || cursor.isBlank() ? null : TaskCursor.decode(cursor);
+        TaskFilter resolvedFilter = resolveCategoryName(filter);
+        if (resolvedFilter == null) {
+            return new TaskPage(Collections.emptyList(), null);
+        }
+        // fetching one extra row tells whether a next page exists without a count query
+        List<Task> tasks = taskRepository.findPage(resolvedFilter, after, pageSize + 1);
+        if (tasks.size() <= pageSize) {
+            return new TaskPage(tasks, null);
+        }
+        List<Task> items = tasks.subList(0, pageSize);
+        return new TaskPage(items, TaskCursor.after(items.get(pageSize - 1)).encode());
+    }
+
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.list.fields"})
+    public FieldsPage retrieveTaskFields(TaskFilter filter, String cursor, Integer limit, String fields) {
+        FieldSelection selection = FieldSelection.parse(fields, TaskRepository.FIELDS);
+        int pageSize = pageSize(limit);
+        TaskCursor after = cursor == null || cursor.isBlank() ? null : TaskCursor.decode(cursor);
+        TaskFilter resolvedFilter = resolveCategoryName(filter);
+        if (resolvedFilter == null) {
+            return new FieldsPage(Collections.emptyList(), null);
+        }
+        List<TaskRow> rows = taskRepository.findPageFields(resolvedFilter, after, pageSize + 1, selection);
+        List<Map<String, Object>> items = rows.stream().limit(pageSize).map(TaskRow::fields).toList();
+        String nextCursor = rows.size() <= pageSize ? null : rows.get(pageSize - 1).cursor().encode();
+        return new FieldsPage(items, nextCursor);
+    }
+
+    /*
+    The listing embeds the categories of the tasks, both tables are part of its version.
+     */
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.list.version"})
+    public List<TableVersion> listVersions() {
+        return List.of(taskRepository.findTableVersion(), categoryRepository.findTableVersion());
+    }
+
+    /*
+    Inserts and updates move the change_seq of the task row, deletes record a tombstone: both are read
+    from their change_seq index and merged in sequence order, so a sync costs the number of changes.
+     */
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.changes"})
+    public TaskChanges findChangesSince(String since, Integer limit) {
+        int pageSize = pageSize(limit);
+        long after = since == null || since.isBlank() ? 0 : ChangeToken.decode(since).getChangeSeq();
+        List<Task> tasks = taskRepository.findChangedSince(after, Limit.of(pageSize + 1));
+        List<TaskTombstone> tombstones = taskTombstoneRepository
+                .findByChangeSeqGreaterThanOrderByChangeSeq(after, Limit.of(pageSize + 1));
+
+        LocalDateTime settled = LocalDateTime.now().minus(todoProperties.getSync().getSettleTime());
+        List<ChangedTask> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long next = after;
+        boolean advancing = true;
+        int taskIndex = 0;
+        int tombstoneIndex = 0;
+        while (changed.size() + deleted.size() < pageSize
+                && (taskIndex < tasks.size() || tombstoneIndex < tombstones.size())) {
+            long changeSeq;
+            LocalDateTime changedAt;
+            if (tombstoneIndex == tombstones.size() || (taskIndex < tasks.size()
+                    && tasks.get(taskIndex).getChangeSeq() < tombstones.get(tombstoneIndex).getChangeSeq())) {
+                Task task = tasks.get(taskIndex++);
+                changed.add(ChangedTask.of(task));
+                changeSeq = task.getChangeSeq();
+                changedAt = task.getUpdatedAt();
+            } else {
+                TaskTombstone tombstone = tombstones.get(tombstoneIndex++);
+                deleted.add(tombstone.getTaskId());
+                changeSeq = tombstone.getChangeSeq();
+                changedAt = tombstone.getDeletedAt();
+            }
+            // a transaction still running may commit a lower change_seq, the token stays before recent changes
+            advancing = advancing && changedAt.isBefore(settled);
+            if (advancing) {
+                next = changeSeq;
+            }
+        }
+        // a client looping on hasMore would otherwise request the same unsettled changes again right away
+        boolean hasMore = advancing && (taskIndex < tasks.size() || tombstoneIndex < tombstones.size());
+        return new TaskChanges(changed, deleted, new ChangeToken(next).encode(), hasMore);
+    }
+
+    /*
+    Served by the in-memory index, kept in sync with the committed writes.
+     */
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.upcoming"})
+    public List<UpcomingTask> findUpcomingTasks(Integer limit) {
+        return upcomingTaskIndex.findUpcoming(pageSize(limit));
+    }
+
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.create"})
     public Task createTask(Task task, Category category) {
-        Category foundCategory = categoryRepository.findCategoriesByName(category.getName())
-                .orElse(category);
-        return taskRepository.saveAndFlush(Task.linkToCategory(task, foundCategory));
+        // no surrounding transaction, the category is created in its own one when missing
+        Task createdTask = categoryResolver.withCategory(category, resolvedCategory -> {
+            // a rejected attempt leaves its generated id and initial version on the task
+            task.setId(null);
+            task.setVersion(null);
+            return taskRepository.saveAndFlush(Task.linkToCategory(task, resolvedCategory));
+        });
+        eventPublisher.publishEvent(TaskChangedEvent.created(createdTask));
+        return createdTask;
     }
 
     @Override
-    @Transactional
+    @Timed(value = "todo.service", extraTags = {"operation", "task.update"})
     public Task updateTask(Task task, Category category) {
-        if (!taskRepository.existsById(task.getId())) {
+        int updatedRows = categoryResolver.withCategory(category, resolvedCategory -> {
+            Task.linkToCategory(task, resolvedCategory);
+            return taskRepository.updateTask(task.getId(), task.getName(), task.getDescription(),
+                    task.getDeadline(), resolvedCategory, task.getVersion());
+        });
+        if (updatedRows == 0) {
+            // the extra select only runs on the failure path, to tell a missing row from a concurrent update
+            if (task.getVersion() != null && taskRepository.existsById(task.getId())) {
+                throw new StaleVersionException("Task with id : " + task.getId()
+                        + " was modified, expected version : " + task.getVersion());
+            }
             throw new TaskNotFoundException("Cannot find task with id : " + task.getId());
         }
-        Category foundCategory = categoryRepository.findCategoriesByName(category.getName())
-                .orElse(category);
-
-        return taskRepository.saveAndFlush(Task.linkToCategory(task, foundCategory));
+        // without an expected version the row was updated whatever its version was, so the new one is unknown
+        task.setVersion(task.getVersion() == null ? null : task.getVersion() + 1);
+        eventPublisher.publishEvent(TaskChangedEvent.updated(task));
+        return task;
     }
 
     @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.delete"})
     @Transactional
     public void deleteTaskById(Long id) {
-        if (!taskRepository.existsById(id)) {
+        // the tombstone is only recorded when the task exists, and rolled back with the transaction otherwise
+        if (taskTombstoneRepository.recordDeletions(List.of(id)) == 0 || taskRepository.deleteTask(id) == 0) {
             throw new TaskNotFoundException("Cannot find task with id : " + id);
         }
-        taskRepository.deleteById(id);
+        eventPublisher.publishEvent(TaskChangedEvent.deleted(id));
+    }
+
+    @Override
+    @Timed(value = "todo.service", extraTags = {"operation", "task.delete.batch"})
+    @Transactional
+    public List<DeleteResult> deleteTasksByIds(List<Long> ids) {
+        List<Long> requestedIds = requestedIds(ids);
+        if (requestedIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> existingIds = new HashSet<>(taskRepository.findExistingIds(requestedIds));
+        if (!existingIds.isEmpty()) {
+            taskTombstoneRepository.recordDeletions(existingIds);
+            taskRepository.deleteTasks(existingIds);
+            existingIds.forEach(id -> eventPublisher.publishEvent(TaskChangedEvent.deleted(id)));
+        }
+        return requestedIds.stream()
+                .map(id -> existingIds.contains(id) ? DeleteResult.deleted(id) : DeleteResult.notFound(id))
+                .toList();
+    }
+
+    /*
+    Filtering on the category id keeps the query on the tasks index, without a join condition.
+    Returns null when the category name matches no category, or another one than the category id.
+     */
+    private TaskFilter resolveCategoryName(TaskFilter filter) {
+        if (filter.getCategoryName() == null) {
+            return filter;
+        }
+        Long categoryId = categoryCache.findByName(filter.getCategoryName()).map(Category::getId).orElse(null);
+        if (categoryId == null || (filter.getCategoryId() != null && !filter.getCategoryId().equals(categoryId))) {
+            return null;
+        }
+        return TaskFilter.builder()
+                .dueAfter(filter.getDueAfter())
+                .dueBefore(filter.getDueBefore())
+                .categoryId(categoryId)
+                .build();
+    }
+
+    private int pageSize(Integer limit) {
+        TodoProperties.Page page = todoProperties.getPage();
+        if (limit == null) {
+            return page.getDefaultLimit();
+        }
+        return Math.max(1, Math.min(limit, page.getMaxLimit()));
+    }
+
+    /*
+    Distinct requested ids, capped so that a single request cannot build an unbounded IN list.
+     */
+    private List<Long> requestedIds(List<Long> ids) {
+        List<Long> requestedIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        int maxIds = todoProperties.getBatch().getMaxIds();
+        if (requestedIds.size() > maxIds) {
+            throw new TooManyIdsException("Cannot process more than " + maxIds + " ids at once");
+        }
+        return requestedIds;
     }
 }
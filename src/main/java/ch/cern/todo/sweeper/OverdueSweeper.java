@@ -0,0 +1,196 @@
+package ch.cern.todo.sweeper;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.event.TasksOverdueEvent;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.DueTask;
+import ch.cern.todo.repository.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Flips open tasks to OVERDUE once their deadline is passed, without scanning the tasks table.
+Only the deadlines of the next window are held in memory, in a set ordered by deadline then id used as a
+priority queue: every tick the due head of the queue is flipped in batches, each batch by one set-based update,
+and the window is extended by the slice of deadlines following it once half of it is consumed.
+Tasks written meanwhile are added from their change events. Entries made stale by an update or a delete are
+left in the queue, the update only flips tasks still open and due.
+Open tasks already due at startup are flipped first, straight from the (status, deadline) index.
+ */
+@Slf4j
+@Component
+public class OverdueSweeper {
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TodoProperties todoProperties;
+    // a single thread, sweeps never overlap
+    private final ScheduledExecutorService scheduler;
+    private final NavigableSet<DueTask> queue = new ConcurrentSkipListSet<>();
+    private final Timer lag;
+    private final Counter transitions;
+    // only read and written by the sweeping thread, every open task due up to it is in the queue
+    private LocalDateTime windowEnd;
+
+    @Autowired
+    public OverdueSweeper(TaskRepository taskRepository,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher,
+                          TodoProperties todoProperties,
+                          MeterRegistry meterRegistry) {
+        this(taskRepository, transactionManager, eventPublisher, todoProperties, meterRegistry,
+                Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "overdue-sweeper")));
+    }
+
+    OverdueSweeper(TaskRepository taskRepository,
+                   PlatformTransactionManager transactionManager,
+                   ApplicationEventPublisher eventPublisher,
+                   TodoProperties todoProperties,
+                   MeterRegistry meterRegistry,
+                   ScheduledExecutorService scheduler) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.todoProperties = todoProperties;
+        this.scheduler = scheduler;
+        this.lag = Timer.builder("todo.overdue.lag")
+                .description("Time between the deadline of a task and its transition to overdue")
+                .register(meterRegistry);
+        this.transitions = Counter.builder("todo.overdue.transitions")
+                .register(meterRegistry);
+        Gauge.builder("todo.overdue.queue.size", queue, Set::size)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        TodoProperties.Overdue overdue = todoProperties.getOverdue();
+        if (overdue.isEnabled()) {
+            long tick = overdue.getTick().toMillis();
+            scheduler.scheduleWithFixedDelay(this::sweep, 0, tick, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // the task write path does not always run in a transaction, its events are then published after the write
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        Task task = event.getTask();
+        // the window never ends later than now plus its length, tasks due after it are loaded by a later refill
+        if (task != null && task.getDeadline() != null && todoProperties.getOverdue().isEnabled()
+                && task.getDeadline().isBefore(LocalDateTime.now().plus(todoProperties.getOverdue().getWindow()))) {
+            queue.add(new DueTask(task.getId(), task.getDeadline()));
+        }
+    }
+
+    int queueSize() {
+        return queue.size();
+    }
+
+    void sweep() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (windowEnd == null) {
+                catchUp(now);
+                windowEnd = now;
+            }
+            refill(now);
+            flipDue(now);
+        } catch (RuntimeException e) {
+            // thrown out of the task, it would cancel the next sweeps
+            log.error("Overdue sweep failed", e);
+        }
+    }
+
+    private void catchUp(LocalDateTime now) {
+        int batchSize = todoProperties.getOverdue().getBatchSize();
+        List<DueTask> due;
+        do {
+            due = taskRepository.findOpenDueBy(now, Limit.of(batchSize));
+            flip(due, now);
+        } while (due.size() == batchSize);
+    }
+
+    private void refill(LocalDateTime now) {
+        Duration window = todoProperties.getOverdue().getWindow();
+        if (windowEnd.isAfter(now.plus(window.dividedBy(2)))) {
+            return;
+        }
+        LocalDateTime until = now.plus(window);
+        queue.addAll(taskRepository.findOpenDueBetween(windowEnd, until));
+        windowEnd = until;
+    }
+
+    private void flipDue(LocalDateTime now) {
+        int batchSize = todoProperties.getOverdue().getBatchSize();
+        NavigableSet<DueTask> due = queue.headSet(new DueTask(Long.MAX_VALUE, now), true);
+        while (!due.isEmpty()) {
+            List<DueTask> batch = new ArrayList<>(batchSize);
+            DueTask task;
+            while (batch.size() < batchSize && (task = due.pollFirst()) != null) {
+                batch.add(task);
+            }
+            try {
+                flip(batch, now);
+            } catch (RuntimeException e) {
+                // retried by the next sweep
+                queue.addAll(batch);
+                throw e;
+            }
+        }
+    }
+
+    private void flip(List<DueTask> candidates, LocalDateTime now) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        List<Long> ids = candidates.stream().map(DueTask::id).distinct().toList();
+        List<Task> flipped = transactionTemplate.execute(status -> {
+            List<Task> tasks = taskRepository.lockOpenDue(ids, now);
+            if (tasks.isEmpty()) {
+                return Collections.<Task>emptyList();
+            }
+            List<Long> flippedIds = tasks.stream().map(Task::getId).toList();
+            taskRepository.markOverdue(flippedIds);
+            eventPublisher.publishEvent(new TasksOverdueEvent(flippedIds));
+            return tasks;
+        });
+        LocalDateTime flippedAt = LocalDateTime.now();
+        for (Task task : flipped) {
+            lag.record(Duration.between(task.getDeadline(), flippedAt));
+        }
+        transitions.increment(flipped.size());
+    }
+}
@@ -0,0 +1,40 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+V3 only changed the increment of the id sequences, their next value stayed right above the last id handed out.
+Hibernate's pooled optimizer takes a sequence value as the top of a block of allocationSize ids, so the first block
+of a database with existing rows overlapped them. Each sequence is restarted one block above the highest id in use.
+Java, the restart value depends on the rows of the database being migrated.
+ */
+public class V9__restart_id_sequences_above_existing_ids extends BaseJavaMigration {
+
+    // allocationSize of Task and Category
+    private static final long ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        restart(connection, "task_categories_seq", "task_categories", "category_id");
+        restart(connection, "tasks_seq", "tasks", "task_id");
+    }
+
+    private static void restart(Connection connection, String sequence, String table, String idColumn) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            long maxId;
+            try (ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(" + idColumn + "), 0) FROM " + table)) {
+                resultSet.next();
+                maxId = resultSet.getLong(1);
+            }
+            // the first block is then (maxId + 1, maxId + ALLOCATION_SIZE + 1]
+            statement.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + ALLOCATION_SIZE + 1));
+        }
+    }
+}
@@ -0,0 +1,2 @@
+/* Backs the keyset pagination of GET /api/tasks, ordered by (deadline, task_id). */
+CREATE INDEX tasks_deadline_id_idx ON tasks (deadline, task_id);
@@ -0,0 +1,7 @@
+/*
+Hibernate's pooled optimizer hands out blocks of ids between two sequence calls,
+so the increment must match the allocationSize of Task and Category.
+*/
+ALTER SEQUENCE task_categories_seq INCREMENT BY 50;
+
+ALTER SEQUENCE tasks_seq INCREMENT BY 50;
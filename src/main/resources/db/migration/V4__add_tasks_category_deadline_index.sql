@@ -0,0 +1,5 @@
+/*
+Backs the category filter of GET /api/tasks, in the order of its keyset pagination.
+Deadline-only ranges are served by the (deadline, task_id) index of V2.
+*/
+CREATE INDEX tasks_category_deadline_idx ON tasks (category_id, deadline, task_id);
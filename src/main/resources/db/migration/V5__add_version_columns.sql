@@ -0,0 +1,4 @@
+/* Optimistic locking: incremented by every update of a row. */
+ALTER TABLE task_categories ADD COLUMN version NUMBER DEFAULT 0 NOT NULL;
+
+ALTER TABLE tasks ADD COLUMN version NUMBER DEFAULT 0 NOT NULL;
@@ -0,0 +1,4 @@
+/* Last modification of each row, maintained by the database on every update, bulk ones included. */
+ALTER TABLE task_categories ADD COLUMN updated_at TIMESTAMP DEFAULT LOCALTIMESTAMP ON UPDATE LOCALTIMESTAMP NOT NULL;
+
+ALTER TABLE tasks ADD COLUMN updated_at TIMESTAMP DEFAULT LOCALTIMESTAMP ON UPDATE LOCALTIMESTAMP NOT NULL;
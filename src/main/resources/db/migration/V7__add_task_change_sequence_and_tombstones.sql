@@ -0,0 +1,26 @@
+/*
+Change sequence of the delta sync (GET /api/tasks/changes): every insert and update of a task,
+bulk ones included, takes the next value, every delete records a tombstone taking one as well.
+*/
+CREATE SEQUENCE if not exists task_changes_seq
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER TABLE tasks ADD COLUMN change_seq NUMBER NULL;
+UPDATE tasks SET change_seq = NEXT VALUE FOR task_changes_seq;
+ALTER TABLE tasks ALTER COLUMN change_seq SET DEFAULT NEXT VALUE FOR task_changes_seq;
+ALTER TABLE tasks ALTER COLUMN change_seq SET ON UPDATE NEXT VALUE FOR task_changes_seq;
+ALTER TABLE tasks ALTER COLUMN change_seq SET NOT NULL;
+
+/* Syncs read the changes after a sequence value, the cost follows the number of changes, not the table size. */
+CREATE UNIQUE INDEX tasks_change_seq_idx ON tasks (change_seq);
+
+CREATE TABLE task_tombstones (
+    change_seq          NUMBER              DEFAULT NEXT VALUE FOR task_changes_seq NOT NULL,
+    task_id             NUMBER              NOT NULL,
+    deleted_at          TIMESTAMP           DEFAULT LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT task_tombstones_pk PRIMARY KEY (change_seq)
+);
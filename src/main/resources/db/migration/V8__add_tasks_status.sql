@@ -0,0 +1,8 @@
+/* Flipped to OVERDUE by the overdue sweeper once the deadline of the task is passed. */
+ALTER TABLE tasks ADD COLUMN status VARCHAR(16) DEFAULT 'OPEN' NOT NULL;
+
+/*
+The sweeper only reads the open tasks of its deadline window, a range scan of this index
+instead of a scan of the table.
+*/
+CREATE INDEX tasks_status_deadline_idx ON tasks (status, deadline, task_id);
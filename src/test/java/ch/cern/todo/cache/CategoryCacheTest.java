@@ -0,0 +1,127 @@
+package ch.cern.todo.cache;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryCacheTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+    private CategoryCache categoryCache;
+
+    @BeforeEach
+    void setUp() {
+        categoryCache = new CategoryCache(categoryRepository, new TodoProperties());
+    }
+
+    @Test
+    public void findByNameQueriesDatabaseOnce() {
+        // given
+        Category category = Category.create(1L, "name", "description");
+        when(categoryRepository.findCategoriesByName("name")).thenReturn(Optional.of(category));
+
+        // when
+        categoryCache.findByName("name");
+        Optional<Category> cached = categoryCache.findByName("name");
+
+        // then
+        assertThat(cached).contains(category);
+        assertThat(cached.get()).isNotSameAs(category);
+        assertThat(categoryCache.statistics().getHitCount()).isEqualTo(1);
+        assertThat(categoryCache.statistics().getMissCount()).isEqualTo(1);
+
+        verify(categoryRepository, times(1)).findCategoriesByName("name");
+    }
+
+    @Test
+    public void findByNameDoesNotCacheUnknownCategory() {
+        // given
+        when(categoryRepository.findCategoriesByName("name")).thenReturn(Optional.empty());
+
+        // when
+        categoryCache.findByName("name");
+        Optional<Category> cached = categoryCache.findByName("name");
+
+        // then
+        assertThat(cached).isEmpty();
+
+        verify(categoryRepository, times(2)).findCategoriesByName("name");
+    }
+
+    @Test
+    public void renamedCategoryIsEvicted() {
+        // given
+        Category category = Category.create(1L, "name", "description");
+        when(categoryRepository.findCategoriesByName("name")).thenReturn(Optional.of(category), Optional.empty());
+        categoryCache.findByName("name");
+
+        // when
+        categoryCache.onCategoryChanged(
+                CategoryChangedEvent.updated(Category.create(1L, "renamed", "description")));
+
+        // then
+        assertThat(categoryCache.findByName("name")).isEmpty();
+        assertThat(categoryCache.statistics().getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void deletedCategoryIsEvicted() {
+        // given
+        Category category = Category.create(1L, "name", "description");
+        when(categoryRepository.findCategoriesByName("name")).thenReturn(Optional.of(category), Optional.empty());
+        categoryCache.findByName("name");
+
+        // when
+        categoryCache.onCategoryChanged(CategoryChangedEvent.deleted(1L));
+
+        // then
+        assertThat(categoryCache.findByName("name")).isEmpty();
+        verify(categoryRepository, times(2)).findCategoriesByName("name");
+    }
+
+    @Test
+    public void changeOfAnUncachedCategoryKeepsOtherEntries() {
+        // given
+        Category category = Category.create(1L, "name", "description");
+        when(categoryRepository.findCategoriesByName("name")).thenReturn(Optional.of(category));
+        categoryCache.findByName("name");
+
+        // when
+        categoryCache.onCategoryChanged(CategoryChangedEvent.deleted(2L));
+        categoryCache.findByName("name");
+
+        // then
+        verify(categoryRepository, times(1)).findCategoriesByName("name");
+    }
+
+    @Test
+    public void entriesExpire() {
+        // given
+        TodoProperties todoProperties = new TodoProperties();
+        todoProperties.getCategoryCache().setExpireAfterWrite(Duration.ZERO);
+        categoryCache = new CategoryCache(categoryRepository, todoProperties);
+        Category category = Category.create(1L, "name", "description");
+        when(categoryRepository.findCategoriesByName("name")).thenReturn(Optional.of(category));
+
+        // when
+        categoryCache.findByName("name");
+        categoryCache.findByName("name");
+
+        // then
+        verify(categoryRepository, times(2)).findCategoriesByName("name");
+    }
+}
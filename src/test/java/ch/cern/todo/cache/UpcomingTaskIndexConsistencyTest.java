@@ -0,0 +1,137 @@
+package ch.cern.todo.cache;
+
+import ch.cern.todo.dto.UpcomingTask;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.TaskFilter;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Tasks created, moved and deleted by many requests at the same time, while others read the index:
+reads never return a task twice, and once the writes are done the index holds exactly the upcoming
+tasks of the database, in deadline order.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+class UpcomingTaskIndexConsistencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 25;
+    private static final String PREFIX = "upcoming-";
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UpcomingTaskIndex upcomingTaskIndex;
+
+    @Test
+    void indexMatchesDatabaseAfterConcurrentWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicBoolean writing = new AtomicBoolean(true);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                String taskName = PREFIX + thread;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    write(taskName);
+                    return null;
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    List<UpcomingTask> upcoming = upcomingTaskIndex.findUpcoming(Integer.MAX_VALUE);
+                    assertThat(upcoming).extracting(UpcomingTask::getId).doesNotHaveDuplicates();
+                }
+                return null;
+            });
+            start.countDown();
+            try {
+                for (Future<?> writer : writers) {
+                    // rethrows any failure of the requests
+                    writer.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                writing.set(false);
+            }
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        // the page is ordered by deadline then id, as the index
+        List<String> expected = taskRepository.findPage(TaskFilter.builder().dueAfter(now).build(), null, Integer.MAX_VALUE).stream()
+                .filter(task -> task.getName().startsWith(PREFIX))
+                .map(task -> task.getId() + "@" + task.getDeadline() + "#" + task.getVersion()
+                        + "/" + task.getCategory().getName())
+                .toList();
+        List<String> indexed = upcomingTaskIndex.findUpcoming(Integer.MAX_VALUE).stream()
+                .filter(task -> task.getName().startsWith(PREFIX))
+                .map(task -> task.getId() + "@" + task.getDeadline() + "#" + task.getVersion()
+                        + "/" + task.getCategory().getName())
+                .toList();
+        assertThat(expected).isNotEmpty();
+        assertThat(indexed).isEqualTo(expected);
+    }
+
+    /*
+    Each writer owns its tasks: it creates one per round, moves the deadline of a random one of them
+    and deletes one from time to time.
+     */
+    private void write(String taskName) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Task> tasks = new ArrayList<>();
+        Set<Long> deletedIds = new HashSet<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            tasks.add(taskService.createTask(Task.create(taskName, null, deadline(random)), category()));
+
+            int index = random.nextInt(tasks.size());
+            Task task = tasks.get(index);
+            Task moved = Task.create(task.getId(), taskName, null, deadline(random));
+            moved.setVersion(task.getVersion());
+            tasks.set(index, taskService.updateTask(moved, category()));
+
+            if (random.nextInt(4) == 0) {
+                Task deleted = tasks.remove(random.nextInt(tasks.size()));
+                taskService.deleteTaskById(deleted.getId());
+                deletedIds.add(deleted.getId());
+            }
+        }
+        assertThat(tasks).extracting(Task::getId).doesNotContainAnyElementsOf(deletedIds);
+    }
+
+    // whole seconds, deadlines compare equal once read back from the database
+    private static LocalDateTime deadline(ThreadLocalRandom random) {
+        return LocalDateTime.now().plusDays(1).plusSeconds(random.nextInt(10_000)).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static Category category() {
+        return Category.create("upcoming-consistency", "written concurrently");
+    }
+}
@@ -0,0 +1,160 @@
+package ch.cern.todo.cache;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.UpcomingTask;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.event.TasksReassignedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.repository.TaskSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UpcomingTaskIndexTest {
+
+    private static final LocalDateTime TOMORROW = LocalDateTime.now().plusDays(1);
+
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private UpcomingTaskIndex upcomingTaskIndex;
+
+    private final Category category = Category.create(1L, "category", "description");
+
+    @BeforeEach
+    void setUp() {
+        upcomingTaskIndex = new UpcomingTaskIndex(taskRepository, categoryRepository, transactionManager, new TodoProperties());
+    }
+
+    @Test
+    public void warmUpOrdersTasksByDeadlineThenId() {
+        // given
+        Task later = task(1L, TOMORROW.plusHours(1), 0L);
+        Task third = task(3L, TOMORROW, 0L);
+        Task second = task(2L, TOMORROW, 0L);
+        when(categoryRepository.findAll()).thenReturn(List.of(category));
+        when(taskRepository.streamDueFrom(any(), anyInt())).thenReturn(summaries(later, third, second));
+
+        // when
+        upcomingTaskIndex.warmUp();
+        List<UpcomingTask> upcoming = upcomingTaskIndex.findUpcoming(2);
+
+        // then
+        assertThat(upcoming).extracting(UpcomingTask::getId).containsExactly(2L, 3L);
+        assertThat(upcoming.get(0).getCategory().getName()).isEqualTo("category");
+    }
+
+    @Test
+    public void updateMovesTheTask() {
+        // given
+        warmUp(task(1L, TOMORROW, 0L), task(2L, TOMORROW.plusHours(1), 0L));
+
+        // when
+        upcomingTaskIndex.onTaskChanged(TaskChangedEvent.updated(task(1L, TOMORROW.plusHours(2), 1L)));
+
+        // then
+        assertThat(upcomingTaskIndex.findUpcoming(10)).extracting(UpcomingTask::getId).containsExactly(2L, 1L);
+        assertThat(upcomingTaskIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void olderVersionIsIgnored() {
+        // given
+        warmUp(task(1L, TOMORROW, 2L));
+
+        // when
+        upcomingTaskIndex.onTaskChanged(TaskChangedEvent.updated(task(1L, TOMORROW.plusHours(1), 1L)));
+
+        // then
+        List<UpcomingTask> upcoming = upcomingTaskIndex.findUpcoming(10);
+        assertThat(upcoming).hasSize(1);
+        assertThat(upcoming.get(0).getDeadline()).isEqualTo(TOMORROW);
+        assertThat(upcoming.get(0).getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    public void lateEventDoesNotBringDeletedTaskBack() {
+        // given
+        warmUp(task(1L, TOMORROW, 0L));
+
+        // when
+        upcomingTaskIndex.onTaskChanged(TaskChangedEvent.deleted(1L));
+        upcomingTaskIndex.onTaskChanged(TaskChangedEvent.updated(task(1L, TOMORROW, 1L)));
+
+        // then
+        assertThat(upcomingTaskIndex.findUpcoming(10)).isEmpty();
+        assertThat(upcomingTaskIndex.size()).isZero();
+    }
+
+    @Test
+    public void passedDeadlinesArePruned() {
+        // given
+        warmUp(task(1L, LocalDateTime.now().minusMinutes(1), 0L), task(2L, TOMORROW, 0L));
+
+        // when
+        List<UpcomingTask> upcoming = upcomingTaskIndex.findUpcoming(10);
+
+        // then
+        assertThat(upcoming).extracting(UpcomingTask::getId).containsExactly(2L);
+        assertThat(upcomingTaskIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void categoryChangesAndReassignmentsAreApplied() {
+        // given
+        warmUp(task(1L, TOMORROW, 0L));
+        Category renamed = Category.create(1L, "renamed", "description");
+        Category target = Category.create(2L, "target", "description");
+
+        // when
+        upcomingTaskIndex.onCategoryChanged(CategoryChangedEvent.updated(renamed));
+        String nameAfterRename = upcomingTaskIndex.findUpcoming(10).get(0).getCategory().getName();
+        upcomingTaskIndex.onCategoryChanged(CategoryChangedEvent.created(target));
+        upcomingTaskIndex.onTasksReassigned(new TasksReassignedEvent(1L, 2L));
+
+        // then
+        assertThat(nameAfterRename).isEqualTo("renamed");
+        UpcomingTask moved = upcomingTaskIndex.findUpcoming(10).get(0);
+        assertThat(moved.getCategory().getName()).isEqualTo("target");
+        assertThat(moved.getVersion()).isEqualTo(1L);
+    }
+
+    private void warmUp(Task... tasks) {
+        when(categoryRepository.findAll()).thenReturn(Collections.singletonList(category));
+        when(taskRepository.streamDueFrom(any(), anyInt())).thenReturn(summaries(tasks));
+        upcomingTaskIndex.warmUp();
+    }
+
+    private static Stream<TaskSummary> summaries(Task... tasks) {
+        return Arrays.stream(tasks).map(task -> new TaskSummary(task.getId(), task.getName(), task.getDescription(),
+                task.getDeadline(), task.getVersion(), task.getCategory().getId()));
+    }
+
+    private Task task(Long id, LocalDateTime deadline, Long version) {
+        Task task = Task.linkToCategory(Task.create(id, "task-" + id, "description", deadline), category);
+        task.setVersion(version);
+        return task;
+    }
+}
@@ -1,27 +1,37 @@
 package ch.cern.todo.controller;
 
 import ch.cern.todo.dto.CategoryDto;
+import ch.cern.todo.dto.ReassignResult;
+import ch.cern.todo.event.CategoryChangedEvent;
 import ch.cern.todo.exception.CategoryAlreadyExistException;
 import ch.cern.todo.exception.CategoryNotFoundException;
 import ch.cern.todo.model.Category;
+import ch.cern.todo.repository.TableVersion;
 import ch.cern.todo.service.CategoryService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -34,6 +44,14 @@ class CategoryControllerTest {
     private ObjectMapper objectMapper;
     @MockBean
     private CategoryService categoryService;
+    @Autowired
+    private CategoryListSnapshot categoryListSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        // the snapshot outlives the mocks of the previous test
+        categoryListSnapshot.invalidate();
+    }
 
     @Test
     void createCategorySuccess() throws Exception {
@@ -236,6 +254,152 @@ class CategoryControllerTest {
                 .andExpect(content().string(objectMapper.writeValueAsString(categories)));
     }
 
+    @Test
+    void findAllCategoriesAsSmile() throws Exception {
+        // given
+        List<Category> categories = Collections.singletonList(Category.create(1L, "category", "category description"));
+
+        Mockito.when(categoryService.retrieveAllCategories()).thenReturn(categories);
+
+        // when
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // then
+        JsonNode decoded = new ObjectMapper(new SmileFactory()).readTree(body);
+        Assertions.assertEquals(1L, decoded.get(0).get("id").asLong());
+        Assertions.assertEquals("category", decoded.get(0).get("name").asText());
+        Assertions.assertEquals("category description", decoded.get(0).get("description").asText());
+    }
+
+    @Test
+    void findAllCategoriesPrefersTheHighestQuality() throws Exception {
+        // given
+        List<Category> categories = Collections.singletonList(Category.create(1L, "category", "category description"));
+
+        Mockito.when(categoryService.retrieveAllCategories()).thenReturn(categories);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .header(HttpHeaders.ACCEPT, "application/cbor;q=0, */*"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(categories)));
+    }
+
+    @Test
+    void findAllCategoriesUnsupportedTypeIsNotAcceptable() throws Exception {
+        // given
+        Mockito.when(categoryService.retrieveAllCategories()).thenReturn(Collections.emptyList());
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .accept(MediaType.TEXT_HTML))
+                .andDo(print())
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0"))
+                .andDo(print())
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void findAllCategoriesWithFields() throws Exception {
+        // given
+        List<Map<String, Object>> categories = List.of(Map.of("name", "category"));
+
+        Mockito.when(categoryService.retrieveAllCategoryFields("name")).thenReturn(categories);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .param("fields", "name")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string("[{\"name\":\"category\"}]"));
+        Mockito.verify(categoryService, Mockito.never()).retrieveAllCategories();
+    }
+
+    @Test
+    void findAllCategoriesIsServedFromTheSnapshot() throws Exception {
+        // given
+        List<Category> categories = Collections.singletonList(Category.create(1L, "category", "category description"));
+        Mockito.when(categoryService.listVersions()).thenReturn(List.of(new TableVersion(2L, 7L, 3L)));
+        Mockito.when(categoryService.retrieveAllCategories()).thenReturn(categories);
+
+        //then
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/categories"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "W/\"2.7.3\""))
+                    .andExpect(content().string(objectMapper.writeValueAsString(categories)));
+        }
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2.7.3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(Matchers.containsString(HttpHeaders.ACCEPT))));
+        // built once, by the first request
+        Mockito.verify(categoryService, Mockito.times(1)).retrieveAllCategories();
+        Mockito.verify(categoryService, Mockito.times(1)).listVersions();
+    }
+
+    @Test
+    void findAllCategoriesSnapshotIsRebuiltAfterAChange() throws Exception {
+        // given
+        List<Category> before = Collections.singletonList(Category.create(1L, "before", null));
+        List<Category> after = Collections.singletonList(Category.create(1L, "after", null));
+        Mockito.when(categoryService.retrieveAllCategories()).thenReturn(before, after);
+
+        // when
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories"))
+                .andExpect(content().string(objectMapper.writeValueAsString(before)));
+        categoryListSnapshot.onCategoryChanged(CategoryChangedEvent.updated(after.get(0)));
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories"))
+                .andDo(print())
+                .andExpect(content().string(objectMapper.writeValueAsString(after)));
+    }
+
+    @Test
+    void findAllCategoriesAsBinaryNotModifiedWithoutLoadingCategories() throws Exception {
+        // given
+        Mockito.when(categoryService.listVersions()).thenReturn(List.of(new TableVersion(2L, 7L, 3L)));
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2.7.3\"")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+        Mockito.verify(categoryService, Mockito.never()).retrieveAllCategories();
+    }
+
+    @Test
+    void findAllCategoriesReturnsETag() throws Exception {
+        // given
+        Mockito.when(categoryService.listVersions()).thenReturn(List.of(new TableVersion(2L, 7L, 3L)));
+        Mockito.when(categoryService.retrieveAllCategories()).thenReturn(Collections.emptyList());
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2.7.2\"")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"2.7.3\""));
+    }
+
     @Test
     void deleteCategorySuccess() throws Exception {
         // given
@@ -247,4 +411,20 @@ class CategoryControllerTest {
                 .andDo(print())
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void reassignTasksSuccess() throws Exception {
+        // given
+        ReassignResult result = new ReassignResult(1L, 2L, 3, true);
+        Mockito.when(categoryService.reassignTasks(1L, 2L, true)).thenReturn(result);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/categories/1/reassign")
+                        .param("target", "2")
+                        .param("deleteSource", "true")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(result)));
+    }
+}
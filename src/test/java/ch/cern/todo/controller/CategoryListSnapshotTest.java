@@ -0,0 +1,92 @@
+package ch.cern.todo.controller;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.service.CategoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryListSnapshotTest {
+
+    @Mock
+    private CategoryService categoryService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CategoryListSnapshot categoryListSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        categoryListSnapshot = new CategoryListSnapshot(categoryService, objectMapper);
+    }
+
+    @Test
+    public void snapshotIsBuiltOnceUntilAChange() {
+        // given
+        when(categoryService.retrieveAllCategories()).thenReturn(categories("before"), categories("after"));
+
+        // when
+        String first = body(categoryListSnapshot.get());
+        String cached = body(categoryListSnapshot.get());
+        categoryListSnapshot.invalidate();
+        String rebuilt = body(categoryListSnapshot.get());
+
+        // then
+        assertThat(first).contains("before").isEqualTo(cached);
+        assertThat(rebuilt).contains("after");
+        verify(categoryService, times(2)).retrieveAllCategories();
+    }
+
+    @Test
+    public void rebuildRacingWithAChangeIsNotKept() throws Exception {
+        // given
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        when(categoryService.retrieveAllCategories())
+                .thenAnswer(invocation -> {
+                    // the rows are read, the change commits before the snapshot is installed
+                    reading.countDown();
+                    assertThat(committed.await(5, TimeUnit.SECONDS)).isTrue();
+                    return categories("before");
+                })
+                .thenReturn(categories("after"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // when
+            Future<CategoryListSnapshot.Snapshot> racing = executor.submit(categoryListSnapshot::get);
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+            categoryListSnapshot.invalidate();
+            committed.countDown();
+            String racingBody = body(racing.get(5, TimeUnit.SECONDS));
+
+            // then
+            // the racing request gets what it read, the next one does not
+            assertThat(racingBody).contains("before");
+            assertThat(body(categoryListSnapshot.get())).contains("after");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Category> categories(String name) {
+        return Collections.singletonList(Category.create(1L, name, null));
+    }
+
+    private static String body(CategoryListSnapshot.Snapshot snapshot) {
+        return new String(snapshot.body(), StandardCharsets.UTF_8);
+    }
+}
@@ -1,29 +1,54 @@
 package ch.cern.todo.controller;
 
+import ch.cern.todo.dto.BatchResult;
 import ch.cern.todo.dto.CategoryDto;
+import ch.cern.todo.dto.ChangedTask;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.FieldsPage;
+import ch.cern.todo.dto.TaskChanges;
 import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.dto.TaskImportResult;
+import ch.cern.todo.dto.TaskPage;
+import ch.cern.todo.dto.UpcomingTask;
+import ch.cern.todo.exception.InvalidCursorException;
+import ch.cern.todo.exception.InvalidFieldsException;
 import ch.cern.todo.exception.TaskNotFoundException;
+import ch.cern.todo.exception.TooManyIdsException;
 import ch.cern.todo.model.Category;
 import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.TableVersion;
+import ch.cern.todo.repository.TaskFilter;
+import ch.cern.todo.service.TaskExportService;
+import ch.cern.todo.service.TaskImportService;
 import ch.cern.todo.service.TaskService;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -36,6 +61,10 @@ class TaskControllerTest {
     private ObjectMapper objectMapper;
     @MockBean
     private TaskService taskService;
+    @MockBean
+    private TaskImportService taskImportService;
+    @MockBean
+    private TaskExportService taskExportService;
 
     @Test
     void createTaskSuccess() throws Exception {
@@ -98,6 +127,60 @@ class TaskControllerTest {
                 .andExpect(content().string(Matchers.containsString("Category description cannot be blank")));
     }
 
+    @Test
+    void importTasksSuccess() throws Exception {
+        // given
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        Category category = Category.create(null, "category name", "category description");
+        List<TaskDto> taskDtos = List.of(
+                getTaskDto(category, "first", "Task description", deadline),
+                getTaskDto(category, "", "Task description", deadline));
+        List<TaskImportResult> results = List.of(
+                TaskImportResult.created(0, 1L),
+                TaskImportResult.failed(1, Collections.singletonList("Task name cannot be blank")));
+
+        Mockito.when(taskImportService.importTasks(Mockito.anyList())).thenReturn(results);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(taskDtos)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    void importNdjsonTasksSuccess() throws Exception {
+        // given
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        Category category = Category.create(null, "category name", "category description");
+        String body = objectMapper.writeValueAsString(getTaskDto(category, "first", "Task description", deadline)) + "\n"
+                + objectMapper.writeValueAsString(getTaskDto(category, "second", "Task description", deadline)) + "\n";
+        List<TaskImportResult> results = List.of(TaskImportResult.created(0, 1L), TaskImportResult.created(1, 2L));
+
+        Mockito.when(taskImportService.importTasks(Mockito.argThat(taskDtos -> taskDtos.size() == 2))).thenReturn(results);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    void importNdjsonTasksMalformed() throws Exception {
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/tasks/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\": \"first\"\n{"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(Matchers.containsString("Malformed NDJSON import")));
+    }
+
     @Test
     void updateTaskSuccess() throws Exception {
         // given
@@ -159,6 +242,96 @@ class TaskControllerTest {
                 .andExpect(content().string(objectMapper.writeValueAsString(task)));
     }
 
+    @Test
+    void findTaskAsCbor() throws Exception {
+        // given
+        Task task = Task.create(1L, "Task", "Task description", LocalDateTime.now().plusMonths(1));
+
+        Mockito.when(taskService.findTaskById(1L)).thenReturn(task);
+
+        // when
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                // the validator is shared with the JSON representation, so it is weak
+                .andExpect(header().string(HttpHeaders.ETAG, Matchers.startsWith("W/")))
+                .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(Matchers.containsString(HttpHeaders.ACCEPT))))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // then
+        JsonNode decoded = new ObjectMapper(new CBORFactory()).readTree(body);
+        Assertions.assertEquals("Task", decoded.get("name").asText());
+        // same date representation as the JSON one
+        Assertions.assertEquals(objectMapper.valueToTree(task).get("deadline"), decoded.get("deadline"));
+    }
+
+    @Test
+    void findTaskNotModified() throws Exception {
+        // given
+        Category category = Category.create(2L, "category", "category description");
+        category.setVersion(1L);
+        Task task = Task.linkToCategory(Task.create(1L, "Task", "Task description", LocalDateTime.now().plusMonths(1)), category);
+        task.setVersion(4L);
+
+        Mockito.when(taskService.findTaskById(1L)).thenReturn(task);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"1.4-2.1\"")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1.4-2.1\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(Matchers.containsString(HttpHeaders.ACCEPT))))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void findAllTasksNotModifiedWithoutLoadingTasks() throws Exception {
+        // given
+        List<TableVersion> versions = List.of(new TableVersion(3L, 12L, 5L), new TableVersion(1L, 2L, 0L));
+        Mockito.when(taskService.listVersions()).thenReturn(versions);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .header(HttpHeaders.IF_NONE_MATCH, ETags.of(versions, TaskFilter.none(), null, null))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+        Mockito.verify(taskService, Mockito.never()).retrieveTasks(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void findAllTasksOtherPageIsNotMatchedByTheETagOfTheFirstOne() throws Exception {
+        // given
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        TaskPage first = new TaskPage(Collections.singletonList(Task.create(1L, "First", null, deadline)), "next");
+        TaskPage second = new TaskPage(Collections.singletonList(Task.create(2L, "Second", null, deadline)), null);
+        Mockito.when(taskService.listVersions()).thenReturn(List.of(new TableVersion(2L, 2L, 0L)));
+        Mockito.when(taskService.retrieveTasks(TaskFilter.none(), null, 1)).thenReturn(first);
+        Mockito.when(taskService.retrieveTasks(TaskFilter.none(), "next", 1)).thenReturn(second);
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("cursor", "next")
+                        .param("limit", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, Matchers.not(eTag)))
+                .andExpect(content().string(objectMapper.writeValueAsString(second)));
+        // the same page is still matched
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("limit", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void findAllTasksSuccess() throws Exception {
         // given
@@ -166,15 +339,161 @@ class TaskControllerTest {
         String taskDescription = "Task description";
         LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
         List<Task> tasks = Collections.singletonList(Task.create(null, taskName, taskDescription, deadline));
+        TaskPage page = new TaskPage(tasks, null);
+
+        Mockito.when(taskService.retrieveTasks(TaskFilter.none(), null, null)).thenReturn(page);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(page)));
+    }
+
+    @Test
+    void findAllTasksNextPage() throws Exception {
+        // given
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        List<Task> tasks = Collections.singletonList(Task.create(2L, "Task", "Task description", deadline));
+        TaskPage page = new TaskPage(tasks, "next");
+
+        Mockito.when(taskService.retrieveTasks(TaskFilter.none(), "current", 1)).thenReturn(page);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("cursor", "current")
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(page)));
+    }
+
+    @Test
+    void findAllTasksFiltered() throws Exception {
+        // given
+        LocalDateTime dueAfter = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime dueBefore = LocalDateTime.of(2030, 2, 1, 0, 0);
+        TaskFilter filter = new TaskFilter(dueAfter, dueBefore, 3L, "sport");
+        TaskPage page = new TaskPage(Collections.emptyList(), null);
 
-        Mockito.when(taskService.retrieveAllTasks()).thenReturn(tasks);
+        Mockito.when(taskService.retrieveTasks(filter, null, null)).thenReturn(page);
 
         //then
         mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("dueAfter", "2030-01-01T00:00:00")
+                        .param("dueBefore", "2030-02-01T00:00:00")
+                        .param("categoryId", "3")
+                        .param("categoryName", "sport")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(content().string(objectMapper.writeValueAsString(tasks)));
+                .andExpect(content().string(objectMapper.writeValueAsString(page)));
+    }
+
+    @Test
+    void findAllTasksInvalidCursor() throws Exception {
+        // given
+        Mockito.when(taskService.retrieveTasks(TaskFilter.none(), "broken", null))
+                .thenThrow(new InvalidCursorException("Invalid page cursor : broken"));
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("cursor", "broken")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(Matchers.containsString("Invalid page cursor : broken")));
+    }
+
+    @Test
+    void findAllTasksWithFields() throws Exception {
+        // given
+        FieldsPage page = new FieldsPage(List.of(Map.of("name", "Task")), null);
+        Mockito.when(taskService.retrieveTaskFields(TaskFilter.none(), null, null, "name")).thenReturn(page);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("fields", "name"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"items\":[{\"name\":\"Task\"}],\"nextCursor\":null}"));
+        Mockito.verify(taskService, Mockito.never()).retrieveTasks(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void findAllTasksWithUnknownFields() throws Exception {
+        // given
+        Mockito.when(taskService.retrieveTaskFields(TaskFilter.none(), null, null, "secret"))
+                .thenThrow(new InvalidFieldsException("Unknown field : secret"));
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("fields", "secret"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(Matchers.containsString("Unknown field : secret")));
+    }
+
+    @Test
+    void findTaskChangesSinceToken() throws Exception {
+        // given
+        Task task = Task.create(1L, "Task", "Task description", LocalDateTime.now().plusMonths(1));
+        TaskChanges changes = new TaskChanges(List.of(ChangedTask.of(task)), List.of(2L), "Mw", false);
+        Mockito.when(taskService.findChangesSince("MQ", 10)).thenReturn(changes);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/changes")
+                        .param("since", "MQ")
+                        .param("limit", "10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(changes)));
+    }
+
+    @Test
+    void findUpcomingTasks() throws Exception {
+        // given
+        Category category = Category.create(1L, "category name", "category description");
+        List<UpcomingTask> upcoming = List.of(new UpcomingTask(1L, "Task", "Task description",
+                LocalDateTime.now().plusDays(1), 0L, category));
+        Mockito.when(taskService.findUpcomingTasks(10)).thenReturn(upcoming);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/upcoming")
+                        .param("limit", "10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(upcoming)));
+    }
+
+    @Test
+    void exportTasksAsNdjson() throws Exception {
+        // given
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        Task first = Task.create(1L, "first", "Task description", deadline);
+        Task second = Task.create(2L, "second", "Task description", deadline);
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<Task> consumer = invocation.getArgument(0);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(taskExportService).exportTasks(Mockito.any());
+
+        //then
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks/export")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(first) + "\n"
+                        + objectMapper.writeValueAsString(second) + "\n"));
     }
 
     @Test
@@ -189,6 +508,53 @@ class TaskControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void findTasksByIds() throws Exception {
+        // given
+        Category category = Category.create("category", "category description");
+        Task task = Task.linkToCategory(Task.create(1L, "task", "task description", LocalDateTime.now().plusMonths(1)), category);
+        BatchResult<Task> result = new BatchResult<>(List.of(task), List.of(2L));
+        Mockito.when(taskService.findTasksByIds(List.of(1L, 2L))).thenReturn(result);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/tasks")
+                        .param("ids", "1,2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(result)));
+    }
+
+    @Test
+    void deleteTasksByIds() throws Exception {
+        // given
+        List<DeleteResult> results = List.of(DeleteResult.deleted(1L), DeleteResult.notFound(2L));
+        Mockito.when(taskService.deleteTasksByIds(List.of(1L, 2L))).thenReturn(results);
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/tasks")
+                        .param("ids", "1", "2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(results)));
+    }
+
+    @Test
+    void deleteTasksByIdsTooManyIds() throws Exception {
+        // given
+        Mockito.when(taskService.deleteTasksByIds(Mockito.anyList()))
+                .thenThrow(new TooManyIdsException("Cannot process more than 100 ids at once"));
+
+        //then
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/tasks")
+                        .param("ids", "1,2")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(Matchers.containsString("Cannot process more than 100 ids at once")));
+    }
+
     private static TaskDto getTaskDto(Category category, String name, String taskDescription, LocalDateTime deadline) {
         CategoryDto categoryDto = CategoryDto.builder()
                 .name(category.getName())
@@ -0,0 +1,196 @@
+package ch.cern.todo.feed;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.ChangeFeedEvent;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.event.TasksOverdueEvent;
+import ch.cern.todo.model.Task;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedTest {
+
+    private final TodoProperties todoProperties = new TodoProperties();
+
+    @Test
+    void committedChangesReachTheSubscribers() {
+        // given
+        ChangeFeed changeFeed = new ChangeFeed(todoProperties, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        changeFeed.subscribe(emitter, null);
+
+        // when
+        changeFeed.onTaskChanged(TaskChangedEvent.created(Task.create(1L, "task", null, LocalDateTime.now())));
+        changeFeed.onCategoryChanged(CategoryChangedEvent.deleted(2L));
+
+        // then
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getSequence).containsExactly(1L, 2L);
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getName).containsExactly("task.created", "category.deleted");
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void reconnectionReplaysTheEventsAfterLastEventId() {
+        // given
+        ChangeFeed changeFeed = new ChangeFeed(todoProperties, Runnable::run);
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(1L));
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(2L));
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(3L));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // when
+        changeFeed.subscribe(emitter, 1L);
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(4L));
+
+        // then
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getSequence).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    void reconnectionOlderThanTheHistoryIsReset() {
+        // given
+        todoProperties.getChangeFeed().setHistorySize(2);
+        ChangeFeed changeFeed = new ChangeFeed(todoProperties, Runnable::run);
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(1L));
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(2L));
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(3L));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // when
+        changeFeed.subscribe(emitter, 0L);
+
+        // then
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getName).containsExactly("reset");
+        assertThat(emitter.events.get(0).getSequence()).isEqualTo(3L);
+    }
+
+    @Test
+    void reconnectionAheadOfTheSequenceIsReset() {
+        // given
+        ChangeFeed changeFeed = new ChangeFeed(todoProperties, Runnable::run);
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(1L));
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // when
+        // an id given by a previous run of the application
+        changeFeed.subscribe(emitter, 42L);
+
+        // then
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getName).containsExactly("reset");
+        assertThat(emitter.events.get(0).getSequence()).isEqualTo(1L);
+    }
+
+    @Test
+    void reconnectionWithMoreMissedEventsThanTheBufferIsReset() {
+        // given
+        // a sender that only runs when asked, so nothing is drained before the next publish
+        List<Runnable> pendingSends = new ArrayList<>();
+        ChangeFeed changeFeed = new ChangeFeed(todoProperties, pendingSends::add);
+        int missedEvents = todoProperties.getChangeFeed().getBufferSize() + 44;
+        for (long id = 1; id <= missedEvents; id++) {
+            changeFeed.onTaskChanged(TaskChangedEvent.deleted(id));
+        }
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // when
+        changeFeed.subscribe(emitter, 0L);
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(0L));
+        pendingSends.forEach(Runnable::run);
+
+        // then
+        assertThat(changeFeed.subscriberCount()).isEqualTo(1);
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getName).containsExactly("reset", "task.deleted");
+        assertThat(emitter.events.get(0).getSequence()).isEqualTo((long) missedEvents);
+    }
+
+    @Test
+    void changesOfOneTransactionArePublishedAsOneBatchAfterCommit() {
+        // given
+        ChangeFeed changeFeed = new ChangeFeed(todoProperties, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        changeFeed.subscribe(emitter, null);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        List<TransactionSynchronization> synchronizations;
+        try {
+            changeFeed.onTaskChanged(TaskChangedEvent.created(Task.create(1L, "task", null, LocalDateTime.now())));
+            changeFeed.onTaskChanged(TaskChangedEvent.deleted(2L));
+            changeFeed.onTaskChanged(TaskChangedEvent.deleted(3L));
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            int eventsBeforeCommit = emitter.events.size();
+
+            // when
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+            // then
+            assertThat(eventsBeforeCommit).isZero();
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getName).containsExactly("task.batch");
+        assertThat(emitter.events.get(0).getData())
+                .isEqualTo(Map.of("created", List.of(1L), "deleted", List.of(2L, 3L)));
+        assertThat(TransactionSynchronizationManager.hasResource(changeFeed)).isFalse();
+    }
+
+    @Test
+    void overdueTasksAreOneEvent() {
+        // given
+        ChangeFeed changeFeed = new ChangeFeed(todoProperties, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        changeFeed.subscribe(emitter, null);
+
+        // when
+        changeFeed.onTasksOverdue(new TasksOverdueEvent(List.of(1L, 2L, 3L)));
+
+        // then
+        assertThat(emitter.events).extracting(ChangeFeedEvent::getName).containsExactly("task.overdue");
+        assertThat(emitter.events.get(0).getData()).isEqualTo(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void slowSubscribersAreDisconnected() {
+        // given
+        todoProperties.getChangeFeed().setBufferSize(2);
+        // a sender that never runs, as if the subscriber socket was blocked
+        List<Runnable> pendingSends = new ArrayList<>();
+        ChangeFeed changeFeed = new ChangeFeed(todoProperties, pendingSends::add);
+        changeFeed.subscribe(new RecordingEmitter(), null);
+
+        // when
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(1L));
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(2L));
+        int subscribersWithFullBuffer = changeFeed.subscriberCount();
+        changeFeed.onTaskChanged(TaskChangedEvent.deleted(3L));
+
+        // then
+        assertThat(subscribersWithFullBuffer).isEqualTo(1);
+        assertThat(changeFeed.subscriberCount()).isZero();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<ChangeFeedEvent> events = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(ChangeFeedEvent.class::isInstance)
+                    .map(ChangeFeedEvent.class::cast)
+                    .forEach(events::add);
+        }
+    }
+}
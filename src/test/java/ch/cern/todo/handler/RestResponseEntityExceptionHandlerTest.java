@@ -0,0 +1,43 @@
+package ch.cern.todo.handler;
+
+import ch.cern.todo.dto.Error;
+import ch.cern.todo.exception.CategoryNotFoundException;
+import ch.cern.todo.exception.StaleVersionException;
+import ch.cern.todo.exception.TaskNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RestResponseEntityExceptionHandlerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RestResponseEntityExceptionHandler handler = new RestResponseEntityExceptionHandler(meterRegistry);
+
+    @Test
+    public void businessExceptionsAreCountedByType() {
+        // when
+        handler.handleBusinessException(new TaskNotFoundException("Cannot find task with id : 1"));
+        handler.handleBusinessException(new TaskNotFoundException("Cannot find task with id : 2"));
+        ResponseEntity<Error> response = handler.handleBusinessException(new CategoryNotFoundException("Cannot find category with id : 1"));
+
+        // then
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        assertThat(meterRegistry.counter("todo.business.exceptions", "exception", "TaskNotFoundException").count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.counter("todo.business.exceptions", "exception", "CategoryNotFoundException").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void staleVersionIsAConflict() {
+        // when
+        ResponseEntity<Error> response = handler.handleConflictException(new StaleVersionException("Task with id : 1 was modified"));
+
+        // then
+        assertThat(response.getStatusCode().value()).isEqualTo(409);
+        assertThat(meterRegistry.counter("todo.business.exceptions", "exception", "StaleVersionException").count())
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,35 @@
+package ch.cern.todo.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+Records the SQL generated by Hibernate, so that tests plan the statements the repositories really run.
+Registered with spring.jpa.properties.hibernate.session_factory.statement_inspector.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "ch.cern.todo.repository.CapturingStatementInspector";
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static String last() {
+        if (STATEMENTS.isEmpty()) {
+            throw new IllegalStateException("No statement was captured");
+        }
+        return STATEMENTS.get(STATEMENTS.size() - 1);
+    }
+}
@@ -0,0 +1,72 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CategoryRepositoryTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void deleteCategoryWithoutTasksIsOneStatement() {
+        // given
+        Category category = categoryRepository.save(Category.create("category", "description"));
+        Statistics statistics = StatementCounting.start(entityManager);
+
+        // when
+        int deleted = categoryRepository.deleteCategoryWithoutTasks(category.getId());
+
+        // then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(categoryRepository.existsById(category.getId())).isFalse();
+    }
+
+    @Test
+    void deleteCategoryWithoutTasksKeepsCategoriesInUse() {
+        // given
+        Category category = categoryRepository.save(Category.create("category", "description"));
+        taskRepository.save(Task.linkToCategory(Task.create("task", null, LocalDateTime.now().plusDays(1)), category));
+        Statistics statistics = StatementCounting.start(entityManager);
+
+        // when
+        int deleted = categoryRepository.deleteCategoryWithoutTasks(category.getId());
+
+        // then
+        assertThat(deleted).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(categoryRepository.existsById(category.getId())).isTrue();
+    }
+
+    @Test
+    void deleteTaskIsOneStatement() {
+        // given
+        Category category = categoryRepository.save(Category.create("category", "description"));
+        Task task = taskRepository.save(Task.linkToCategory(Task.create("task", null, LocalDateTime.now().plusDays(1)), category));
+        Statistics statistics = StatementCounting.start(entityManager);
+
+        // when
+        int deleted = taskRepository.deleteTask(task.getId());
+        int missing = taskRepository.deleteTask(task.getId());
+
+        // then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(missing).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
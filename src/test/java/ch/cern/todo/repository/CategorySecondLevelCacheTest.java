@@ -0,0 +1,126 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Without a test transaction: every repository call commits on its own, as in the application,
+so that the second-level cache is populated and invalidated for real.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategorySecondLevelCacheTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        taskTombstoneRepository.deleteAllInBatch();
+        taskRepository.deleteAllInBatch();
+        categoryRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void findByIdIsServedFromTheCacheOnceLoaded() {
+        // given
+        Category category = categoryRepository.save(Category.create("cached", "description"));
+        Statistics statistics = StatementCounting.startWithEmptyCache(entityManagerFactory);
+
+        // when
+        categoryRepository.findById(category.getId());
+        long firstLoadStatements = statistics.getPrepareStatementCount();
+        Category cachedCategory = categoryRepository.findById(category.getId()).orElseThrow();
+
+        // then
+        assertThat(firstLoadStatements).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(cachedCategory.getName()).isEqualTo("cached");
+        assertThat(statistics.getCacheRegionStatistics(Category.CACHE_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findCategoriesByNameIsServedFromTheQueryCache() {
+        // given
+        categoryRepository.save(Category.create("cached", "description"));
+        Statistics statistics = StatementCounting.startWithEmptyCache(entityManagerFactory);
+
+        // when
+        categoryRepository.findCategoriesByName("cached");
+        long firstLoadStatements = statistics.getPrepareStatementCount();
+        Category cachedCategory = categoryRepository.findCategoriesByName("cached").orElseThrow();
+
+        // then
+        assertThat(firstLoadStatements).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(cachedCategory.getName()).isEqualTo("cached");
+    }
+
+    @Test
+    void findAllIsServedFromTheQueryCacheUntilCategoriesChange() {
+        // given
+        Category category = categoryRepository.save(Category.create("cached", "description"));
+        Statistics statistics = StatementCounting.startWithEmptyCache(entityManagerFactory);
+
+        // when
+        categoryRepository.findAll();
+        categoryRepository.findAll();
+        long cachedStatements = statistics.getPrepareStatementCount();
+        categoryRepository.updateCategory(category.getId(), "renamed", "description", null);
+        String nameAfterUpdate = categoryRepository.findAll().get(0).getName();
+
+        // then
+        assertThat(cachedStatements).isEqualTo(1);
+        // the bulk update invalidates the cached query and the category region
+        assertThat(nameAfterUpdate).isEqualTo("renamed");
+    }
+
+    @Test
+    void taskDeletionLeavesTheCategoriesCached() {
+        // given
+        Category category = categoryRepository.save(Category.create("cached", "description"));
+        Task task = taskRepository.save(Task.linkToCategory(Task.create("task", null, LocalDateTime.now().plusDays(1)), category));
+        Statistics statistics = StatementCounting.startWithEmptyCache(entityManagerFactory);
+        categoryRepository.findById(category.getId());
+        categoryRepository.findCategoriesByName("cached");
+        long warmUpStatements = statistics.getPrepareStatementCount();
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            taskTombstoneRepository.recordDeletions(List.of(task.getId()));
+            taskRepository.deleteTask(task.getId());
+        });
+        long deletionStatements = statistics.getPrepareStatementCount() - warmUpStatements;
+        categoryRepository.findById(category.getId());
+        categoryRepository.findCategoriesByName("cached");
+
+        // then
+        assertThat(deletionStatements).isEqualTo(2);
+        // both reads are served from the category region and the query cache
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(warmUpStatements + deletionStatements);
+        assertThat(statistics.getCacheRegionStatistics(Category.CACHE_REGION).getHitCount()).isGreaterThanOrEqualTo(1);
+    }
+}
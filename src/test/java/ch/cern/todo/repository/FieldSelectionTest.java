@@ -0,0 +1,60 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.exception.InvalidFieldsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FieldSelectionTest {
+
+    @Test
+    void parseKeepsTheOrderOfTheEntityAndExpandsParents() {
+        // when
+        FieldSelection selection = FieldSelection.parse("category, name ,id", TaskRepository.FIELDS);
+
+        // then
+        assertThat(selection.getPaths()).containsExactly("id", "name",
+                "category.id", "category.name", "category.description", "category.version");
+    }
+
+    @Test
+    void toRowNestsTheValuesLikeTheEntity() {
+        // given
+        FieldSelection selection = FieldSelection.parse("id,category.name", TaskRepository.FIELDS);
+
+        // when
+        Map<String, Object> row = selection.toRow(List.of(1L, "sport"));
+
+        // then
+        assertThat(row).isEqualTo(Map.of("id", 1L, "category", Map.of("name", "sport")));
+    }
+
+    @Test
+    void toRowKeepsNullValues() {
+        // given
+        FieldSelection selection = FieldSelection.parse("description", TaskRepository.FIELDS);
+
+        // when
+        Map<String, Object> row = selection.toRow(Arrays.asList((Object) null));
+
+        // then
+        assertThat(row).containsEntry("description", null);
+    }
+
+    @Test
+    void parseUnknownFieldException() {
+        assertThrows(InvalidFieldsException.class, () -> FieldSelection.parse("id,password", TaskRepository.FIELDS));
+        // a prefix of a field name is not a parent
+        assertThrows(InvalidFieldsException.class, () -> FieldSelection.parse("categ", TaskRepository.FIELDS));
+    }
+
+    @Test
+    void parseNoFieldException() {
+        assertThrows(InvalidFieldsException.class, () -> FieldSelection.parse(" , ", TaskRepository.FIELDS));
+    }
+}
@@ -0,0 +1,78 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+A database created before the pooled sequences of V3: rows are seeded with the ids of the former one by one
+allocation, then the application migrates the schema to the latest version and inserts through the repositories.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class IdSequenceMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:id-sequence-migration;DB_CLOSE_DELAY=-1";
+    // more than a block of the pooled optimizer
+    private static final int SEEDED_ROWS = 60;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @DynamicPropertySource
+    static void seededDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        Flyway.configure().dataSource(URL, "sa", "").locations("classpath:db/migration").target("2").load().migrate();
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (int i = 0; i < SEEDED_ROWS; i++) {
+                statement.execute("INSERT INTO task_categories (category_id, category_name) "
+                        + "VALUES (NEXT VALUE FOR task_categories_seq, 'seeded-" + i + "')");
+                statement.execute("INSERT INTO tasks (task_id, task_name, deadline, category_id) "
+                        + "VALUES (NEXT VALUE FOR tasks_seq, 'seeded-" + i + "', CURRENT_TIMESTAMP, 1)");
+            }
+        }
+        registry.add("spring.datasource.url", () -> URL);
+        registry.add("spring.datasource.username", () -> "sa");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @Test
+    void insertsAfterTheMigrationDoNotReuseSeededIds() {
+        // given
+        List<Category> categories = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            Category category = categoryRepository.save(Category.create("migrated-" + i, null));
+            categories.add(category);
+            tasks.add(taskRepository.save(Task.linkToCategory(Task.create("migrated-" + i, null, LocalDateTime.now().plusDays(1)), category)));
+        }
+        categoryRepository.flush();
+        taskRepository.flush();
+
+        // then
+        assertThat(categories).extracting(Category::getId).allMatch(id -> id > SEEDED_ROWS);
+        assertThat(tasks).extracting(Task::getId).allMatch(id -> id > SEEDED_ROWS);
+        assertThat(categoryRepository.count()).isEqualTo(SEEDED_ROWS + 3);
+        assertThat(taskRepository.count()).isEqualTo(SEEDED_ROWS + 3);
+    }
+}
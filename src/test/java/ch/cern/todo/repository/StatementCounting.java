@@ -0,0 +1,37 @@
+package ch.cern.todo.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+/*
+Hibernate statistics of the repository tests, reset right before the statements under test.
+ */
+final class StatementCounting {
+
+    private StatementCounting() {
+    }
+
+    /*
+    Writes the pending rows and empties the persistence context so that reads hit the database,
+    then resets the statistics.
+     */
+    static Statistics start(TestEntityManager entityManager) {
+        entityManager.flush();
+        entityManager.clear();
+        return start(entityManager.getEntityManager().getEntityManagerFactory());
+    }
+
+    // empties the second-level cache too, so that the first read of each test is a miss
+    static Statistics startWithEmptyCache(EntityManagerFactory entityManagerFactory) {
+        entityManagerFactory.getCache().evictAll();
+        return start(entityManagerFactory);
+    }
+
+    private static Statistics start(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,406 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.model.TaskStatus;
+import ch.cern.todo.model.TaskTombstone;
+import ch.cern.todo.pagination.TaskCursor;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", CapturingStatementInspector.PROPERTY})
+class TaskRepositoryTest {
+
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void findPageWalksAllTasksInDeadlineOrder() {
+        // given
+        Category category = categoryRepository.saveAndFlush(Category.create("category", "description"));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1).withNano(0);
+        // two tasks share each deadline so the id tie-breaker is exercised
+        for (int i = 0; i < 7; i++) {
+            taskRepository.save(Task.linkToCategory(Task.create("task" + i, null, deadline.plusDays(3 - i / 2)), category));
+        }
+        taskRepository.flush();
+
+        // when
+        List<Task> walked = new ArrayList<>();
+        TaskCursor cursor = null;
+        List<Task> page;
+        do {
+            page = taskRepository.findPage(TaskFilter.none(), cursor, 3);
+            walked.addAll(page);
+            cursor = page.isEmpty() ? null : TaskCursor.after(page.get(page.size() - 1));
+        } while (page.size() == 3);
+
+        // then
+        assertThat(walked).hasSize(7);
+        for (int i = 1; i < walked.size(); i++) {
+            Task previous = walked.get(i - 1);
+            Task current = walked.get(i);
+            assertThat(previous.getDeadline()).isBeforeOrEqualTo(current.getDeadline());
+            if (previous.getDeadline().equals(current.getDeadline())) {
+                assertThat(previous.getId()).isLessThan(current.getId());
+            }
+        }
+    }
+
+    @Test
+    void findPageLoadsTasksWithTheirCategoriesInOneStatement() {
+        // given
+        Category sport = categoryRepository.save(Category.create("sport", null));
+        Category software = categoryRepository.save(Category.create("software", null));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        for (int i = 0; i < 4; i++) {
+            taskRepository.save(Task.linkToCategory(Task.create("task" + i, null, deadline.plusDays(i)), i % 2 == 0 ? sport : software));
+        }
+        Statistics statistics = StatementCounting.start(entityManager);
+
+        // when
+        List<Task> page = taskRepository.findPage(TaskFilter.none(), null, 10);
+        TaskCursor cursor = TaskCursor.after(page.get(1));
+        List<Task> nextPage = taskRepository.findPage(TaskFilter.none(), cursor, 10);
+
+        // then
+        assertThat(page).hasSize(4).allMatch(task -> Hibernate.isInitialized(task.getCategory()));
+        assertThat(nextPage).hasSize(2).allMatch(task -> Hibernate.isInitialized(task.getCategory()));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void findPageFieldsReadsOnlyTheSelectedFieldsInOneStatement() {
+        // given
+        Category category = categoryRepository.save(Category.create("sport", null));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1).withNano(0);
+        for (int i = 0; i < 3; i++) {
+            taskRepository.save(Task.linkToCategory(Task.create("task" + i, "t".repeat(500), deadline.plusDays(i)), category));
+        }
+        Statistics statistics = StatementCounting.start(entityManager);
+        FieldSelection fields = FieldSelection.parse("name,category.name", TaskRepository.FIELDS);
+
+        // when
+        List<TaskRow> page = taskRepository.findPageFields(TaskFilter.none(), null, 2, fields);
+        List<TaskRow> nextPage = taskRepository.findPageFields(TaskFilter.none(), page.get(1).cursor(), 2, fields);
+
+        // then
+        assertThat(page).extracting(TaskRow::fields).containsExactly(
+                Map.of("name", "task0", "category", Map.of("name", "sport")),
+                Map.of("name", "task1", "category", Map.of("name", "sport")));
+        assertThat(page.get(1).cursor().getDeadline()).isEqualTo(deadline.plusDays(1));
+        assertThat(nextPage).extracting(TaskRow::fields)
+                .containsExactly(Map.of("name", "task2", "category", Map.of("name", "sport")));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void findByIdLoadsTaskWithItsCategoryInOneStatement() {
+        // given
+        Category category = categoryRepository.save(Category.create("category", null));
+        Task task = taskRepository.save(Task.linkToCategory(Task.create("task", null, LocalDateTime.now().plusDays(1)), category));
+        Statistics statistics = StatementCounting.start(entityManager);
+
+        // when
+        Task found = taskRepository.findById(task.getId()).orElseThrow();
+
+        // then
+        assertThat(Hibernate.isInitialized(found.getCategory())).isTrue();
+        assertThat(found.getCategory().getName()).isEqualTo("category");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findPageFiltersOnCategoryAndDeadlineRange() {
+        // given
+        Category sport = categoryRepository.save(Category.create("sport", null));
+        Category software = categoryRepository.save(Category.create("software", null));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        for (int i = 0; i < 6; i++) {
+            taskRepository.save(Task.linkToCategory(Task.create("task" + i, null, deadline.plusDays(i)), i % 2 == 0 ? sport : software));
+        }
+        entityManager.flush();
+        TaskFilter filter = TaskFilter.builder()
+                .categoryId(sport.getId())
+                .dueAfter(deadline.plusDays(1))
+                .dueBefore(deadline.plusDays(4))
+                .build();
+
+        // when
+        List<Task> page = taskRepository.findPage(filter, null, 10);
+
+        // then
+        assertThat(page).extracting(Task::getName).containsExactly("task2");
+    }
+
+    @Test
+    void streamAllReturnsDetachedTasksInIdOrder() {
+        // given
+        Category category = categoryRepository.save(Category.create("category", null));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        for (int i = 0; i < 5; i++) {
+            taskRepository.save(Task.linkToCategory(Task.create("task" + i, null, deadline.minusDays(i)), category));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<Task> streamed;
+        try (Stream<Task> tasks = taskRepository.streamAll(2)) {
+            streamed = tasks.toList();
+        }
+
+        // then
+        assertThat(streamed).extracting(Task::getName).containsExactly("task0", "task1", "task2", "task3", "task4");
+        assertThat(streamed).noneMatch(entityManager.getEntityManager()::contains);
+        assertThat(streamed).allMatch(task -> task.getCategory().getName().equals("category"));
+    }
+
+    @Test
+    void updateTaskIsOneStatementAndChecksTheVersion() {
+        // given
+        Category category = categoryRepository.saveAndFlush(Category.create("category", "description"));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1).withNano(0);
+        Task task = taskRepository.save(Task.linkToCategory(Task.create("task", null, deadline), category));
+        Statistics statistics = StatementCounting.start(entityManager);
+
+        // when
+        int updated = taskRepository.updateTask(task.getId(), "renamed", null, deadline, category, 0L);
+        int stale = taskRepository.updateTask(task.getId(), "stale", null, deadline, category, 0L);
+        int missing = taskRepository.updateTask(task.getId() + 1, "missing", null, deadline, category, null);
+
+        // then
+        assertThat(updated).isEqualTo(1);
+        assertThat(stale).isZero();
+        assertThat(missing).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+
+        entityManager.clear();
+        Task reloaded = taskRepository.findById(task.getId()).orElseThrow();
+        assertThat(reloaded.getName()).isEqualTo("renamed");
+        assertThat(reloaded.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void reassignCategoryMovesAllTasksInOneStatement() {
+        // given
+        Category source = categoryRepository.save(Category.create("source", "description"));
+        Category target = categoryRepository.save(Category.create("target", "description"));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1).withNano(0);
+        for (int i = 0; i < 3; i++) {
+            taskRepository.save(Task.linkToCategory(Task.create("task" + i, null, deadline), source));
+        }
+        Statistics statistics = StatementCounting.start(entityManager);
+
+        // when
+        int moved = taskRepository.reassignCategory(source.getId(), categoryRepository.getReferenceById(target.getId()));
+
+        // then
+        assertThat(moved).isEqualTo(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        TaskFilter targetTasks = TaskFilter.builder().categoryId(target.getId()).build();
+        assertThat(taskRepository.findPage(targetTasks, null, 10)).hasSize(3);
+    }
+
+    @Test
+    void tableVersionChangesOnEveryWrite() {
+        // given
+        Category category = categoryRepository.saveAndFlush(Category.create("category", "description"));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1).withNano(0);
+        Task first = taskRepository.saveAndFlush(Task.linkToCategory(Task.create("first", null, deadline), category));
+        TableVersion initial = taskRepository.findTableVersion();
+
+        // when
+        taskRepository.updateTask(first.getId(), "renamed", null, deadline, category, null);
+        TableVersion afterUpdate = taskRepository.findTableVersion();
+        taskRepository.deleteTask(first.getId());
+        taskRepository.saveAndFlush(Task.linkToCategory(Task.create("second", null, deadline), category));
+        TableVersion afterReplace = taskRepository.findTableVersion();
+
+        // then
+        assertThat(initial).isEqualTo(new TableVersion(1L, first.getId(), 0L));
+        assertThat(afterUpdate).isEqualTo(new TableVersion(1L, first.getId(), 1L));
+        // same row count and version sum as before the update, the new id tells them apart
+        assertThat(afterReplace.rows()).isEqualTo(1L);
+        assertThat(afterReplace.maxId()).isGreaterThan(first.getId());
+    }
+
+    @Test
+    void streamDueFromReadsProjectionsWithoutManagingTasks() {
+        // given
+        Category category = categoryRepository.saveAndFlush(Category.create("category", "description"));
+        LocalDateTime now = LocalDateTime.now();
+        taskRepository.save(Task.linkToCategory(Task.create("passed", null, now.minusDays(1)), category));
+        Task due = taskRepository.save(Task.linkToCategory(Task.create("due", null, now.plusDays(1).withNano(0)), category));
+        StatementCounting.start(entityManager);
+
+        // when
+        List<TaskSummary> summaries;
+        try (Stream<TaskSummary> stream = taskRepository.streamDueFrom(now, 10)) {
+            summaries = stream.toList();
+        }
+
+        // then
+        assertThat(summaries).containsExactly(new TaskSummary(due.getId(), "due", null, due.getDeadline(),
+                due.getVersion(), category.getId()));
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void deadlineRangeUsesDeadlineIndex() {
+        // given
+        LocalDateTime dueAfter = LocalDateTime.now().plusMonths(1);
+        CapturingStatementInspector.clear();
+        taskRepository.findPage(TaskFilter.builder().dueAfter(dueAfter).dueBefore(dueAfter.plusMonths(1)).build(), null, 51);
+
+        // when
+        String plan = explainLastStatement();
+
+        // then
+        assertThat(plan).containsIgnoringCase("tasks_deadline_id_idx");
+    }
+
+    @Test
+    void categoryAndDeadlineRangeUsesCategoryDeadlineIndex() {
+        // given
+        CapturingStatementInspector.clear();
+        taskRepository.findPage(TaskFilter.builder().categoryId(1L).dueAfter(LocalDateTime.now()).build(), null, 51);
+
+        // when
+        String plan = explainLastStatement();
+
+        // then
+        assertThat(plan).containsIgnoringCase("tasks_category_deadline_idx");
+    }
+
+    @Test
+    void writesMoveTheChangeSequenceAndDeletesLeaveTombstones() {
+        // given
+        Category category = categoryRepository.saveAndFlush(Category.create("category", "description"));
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        Task updated = taskRepository.save(Task.linkToCategory(Task.create("updated", null, deadline), category));
+        Task deleted = taskRepository.save(Task.linkToCategory(Task.create("deleted", null, deadline), category));
+        StatementCounting.start(entityManager);
+        List<Task> created = taskRepository.findChangedSince(0, Limit.of(10));
+        long afterCreation = created.get(created.size() - 1).getChangeSeq();
+
+        // when
+        taskRepository.updateTask(updated.getId(), "renamed", null, deadline, category, null);
+        int tombstones = taskTombstoneRepository.recordDeletions(List.of(deleted.getId()));
+        taskRepository.deleteTask(deleted.getId());
+        entityManager.clear();
+
+        // then
+        assertThat(created).extracting(Task::getId).containsExactly(updated.getId(), deleted.getId());
+        assertThat(tombstones).isEqualTo(1);
+        List<Task> changed = taskRepository.findChangedSince(afterCreation, Limit.of(10));
+        List<TaskTombstone> removed = taskTombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeq(afterCreation, Limit.of(10));
+        assertThat(changed).extracting(Task::getName).containsExactly("renamed");
+        assertThat(removed).extracting(TaskTombstone::getTaskId).containsExactly(deleted.getId());
+        assertThat(removed.get(0).getChangeSeq()).isGreaterThan(changed.get(0).getChangeSeq());
+    }
+
+    @Test
+    void changesSinceUsesChangeSequenceIndex() {
+        // given
+        CapturingStatementInspector.clear();
+        taskRepository.findChangedSince(42, Limit.of(51));
+
+        // when
+        String plan = explainLastStatement();
+
+        // then
+        assertThat(plan).containsIgnoringCase("tasks_change_seq_idx");
+    }
+
+    @Test
+    void sweeperReadsOpenDueTasksAndFlipsThemInOneUpdate() {
+        // given
+        Category category = categoryRepository.saveAndFlush(Category.create("category", "description"));
+        LocalDateTime now = LocalDateTime.now();
+        Task passed = taskRepository.save(Task.linkToCategory(Task.create("passed", null, now.minusHours(1)), category));
+        Task soon = taskRepository.save(Task.linkToCategory(Task.create("soon", null, now.plusMinutes(5)), category));
+        taskRepository.save(Task.linkToCategory(Task.create("later", null, now.plusDays(1)), category));
+        StatementCounting.start(entityManager);
+
+        // when
+        List<DueTask> due = taskRepository.findOpenDueBy(now, Limit.of(10));
+        List<DueTask> window = taskRepository.findOpenDueBetween(now, now.plusMinutes(10));
+        List<Task> locked = taskRepository.lockOpenDue(List.of(passed.getId(), soon.getId()), now);
+        int flipped = taskRepository.markOverdue(List.of(passed.getId()));
+        entityManager.clear();
+
+        // then
+        assertThat(due).extracting(DueTask::id).containsExactly(passed.getId());
+        assertThat(window).extracting(DueTask::id).containsExactly(soon.getId());
+        assertThat(locked).extracting(Task::getId).containsExactly(passed.getId());
+        assertThat(flipped).isEqualTo(1);
+        Task overdue = taskRepository.findById(passed.getId()).orElseThrow();
+        assertThat(overdue.getStatus()).isEqualTo(TaskStatus.OVERDUE);
+        assertThat(overdue.getVersion()).isEqualTo(1L);
+        assertThat(taskRepository.findOpenDueBy(now, Limit.of(10))).isEmpty();
+
+        // a new deadline opens the task again
+        taskRepository.updateTask(passed.getId(), "passed", null, now.plusDays(1), category, null);
+        entityManager.clear();
+        assertThat(taskRepository.findById(passed.getId()).orElseThrow().getStatus()).isEqualTo(TaskStatus.OPEN);
+    }
+
+    @Test
+    void sweeperWindowUsesStatusDeadlineIndex() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        CapturingStatementInspector.clear();
+        taskRepository.findOpenDueBetween(now, now.plusMinutes(10));
+
+        // when
+        String plan = explainLastStatement();
+
+        // then
+        assertThat(plan).containsIgnoringCase("tasks_status_deadline_idx");
+    }
+
+    /*
+    Plans the last statement generated by Hibernate, as the repository method ran it.
+    The plan does not depend on the parameter values, they are all bound to null.
+     */
+    private String explainLastStatement() {
+        String sql = CapturingStatementInspector.last();
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setNull(i, Types.NULL);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+}
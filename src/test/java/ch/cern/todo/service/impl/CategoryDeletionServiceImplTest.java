@@ -0,0 +1,152 @@
+package ch.cern.todo.service.impl;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.CategoryDeletionJob;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.exception.CategoryNotFoundException;
+import ch.cern.todo.exception.JobNotFoundException;
+import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.repository.TaskTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryDeletionServiceImplTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private TaskTombstoneRepository taskTombstoneRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TodoProperties todoProperties = new TodoProperties();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private CategoryDeletionServiceImpl categoryDeletionService;
+
+    @BeforeEach
+    void setUp() {
+        todoProperties.getCategoryDeletion().setBatchSize(2);
+        categoryDeletionService = new CategoryDeletionServiceImpl(taskRepository, taskTombstoneRepository, categoryRepository,
+                transactionManager, eventPublisher, todoProperties, executor);
+    }
+
+    @Test
+    public void startDeletionRemovesTasksInBatchesThenTheCategory() throws InterruptedException {
+        // given
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(taskRepository.countByCategoryId(1L)).thenReturn(3L);
+        when(taskRepository.findIdsByCategoryId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(10L, 11L), List.of(12L), Collections.emptyList());
+        when(taskRepository.deleteTasks(List.of(10L, 11L))).thenReturn(2);
+        when(taskRepository.deleteTasks(List.of(12L))).thenReturn(1);
+        when(categoryRepository.deleteCategoryWithoutTasks(1L)).thenReturn(1);
+
+        // when
+        CategoryDeletionJob job = categoryDeletionService.startDeletion(1L);
+        awaitJobs();
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(CategoryDeletionJob.Status.COMPLETED);
+        assertThat(job.getTotalTasks()).isEqualTo(3);
+        assertThat(job.getDeletedTasks()).isEqualTo(3);
+        assertThat(categoryDeletionService.findJob(job.getId())).isSameAs(job);
+        // one transaction per batch, plus the empty batch and the category delete
+        verify(transactionManager, times(4)).commit(any());
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
+        verify(taskTombstoneRepository, times(1)).recordDeletions(List.of(10L, 11L));
+        verify(taskTombstoneRepository, times(1)).recordDeletions(List.of(12L));
+        verify(eventPublisher, times(3)).publishEvent(any(TaskChangedEvent.class));
+    }
+
+    @Test
+    public void startDeletionReportsFailures() throws InterruptedException {
+        // given
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(taskRepository.findIdsByCategoryId(eq(1L), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("database unavailable"));
+
+        // when
+        CategoryDeletionJob job = categoryDeletionService.startDeletion(1L);
+        awaitJobs();
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(CategoryDeletionJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("database unavailable");
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
+    }
+
+    @Test
+    public void startDeletionGivesUpWhenTasksKeepBeingAdded() throws InterruptedException {
+        // given
+        todoProperties.getCategoryDeletion().setMaxRounds(2);
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        when(taskRepository.findIdsByCategoryId(eq(1L), any(Pageable.class))).thenReturn(Collections.emptyList());
+        // a task is added before every attempt to delete the category
+        when(categoryRepository.deleteCategoryWithoutTasks(1L)).thenReturn(0);
+
+        // when
+        CategoryDeletionJob job = categoryDeletionService.startDeletion(1L);
+        awaitJobs();
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(CategoryDeletionJob.Status.FAILED);
+        assertThat(job.getError()).isEqualTo("Category 1 still has tasks after 2 rounds of deletion");
+        verify(categoryRepository, times(2)).deleteCategoryWithoutTasks(1L);
+    }
+
+    @Test
+    public void startDeletionAfterShutdownFailsTheJob() throws InterruptedException {
+        // given
+        when(categoryRepository.existsById(1L)).thenReturn(true);
+        categoryDeletionService.shutdown();
+
+        // when
+        CategoryDeletionJob job = categoryDeletionService.startDeletion(1L);
+
+        // then
+        assertThat(job.getStatus()).isEqualTo(CategoryDeletionJob.Status.FAILED);
+        assertThat(job.isFinished()).isTrue();
+    }
+
+    @Test
+    public void startDeletionCategoryNotFoundException() {
+        // given
+        when(categoryRepository.existsById(1L)).thenReturn(false);
+
+        // then
+        assertThrows(CategoryNotFoundException.class, () -> categoryDeletionService.startDeletion(1L));
+    }
+
+    @Test
+    public void findJobNotFoundException() {
+        assertThrows(JobNotFoundException.class, () -> categoryDeletionService.findJob("unknown"));
+    }
+
+    private void awaitJobs() throws InterruptedException {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
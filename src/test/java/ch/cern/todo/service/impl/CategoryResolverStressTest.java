@@ -0,0 +1,77 @@
+package ch.cern.todo.service.impl;
+
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.service.TaskService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+Many requests creating tasks with the same new category at the same time:
+every one of them must succeed and the category must exist once.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+class CategoryResolverStressTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void concurrentCreationsOfTheSameCategoryAllSucceed() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String categoryName = "contended-" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Task>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    String taskName = "task-" + round + "-" + thread;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return taskService.createTask(
+                                Task.create(taskName, null, LocalDateTime.now().plusDays(1)),
+                                Category.create(categoryName, "created concurrently"));
+                    }));
+                }
+                start.countDown();
+
+                Long categoryId = null;
+                for (Future<Task> future : futures) {
+                    // rethrows any failure of the request
+                    Task task = future.get(30, TimeUnit.SECONDS);
+                    if (categoryId == null) {
+                        categoryId = task.getCategory().getId();
+                    }
+                    assertThat(task.getCategory().getId()).isEqualTo(categoryId);
+                }
+                assertThat(categoryRepository.findCategoriesByName(categoryName)).isPresent();
+                assertThat(taskRepository.countByCategoryId(categoryId)).isEqualTo(THREADS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
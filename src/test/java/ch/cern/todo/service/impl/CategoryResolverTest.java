@@ -0,0 +1,133 @@
+package ch.cern.todo.service.impl;
+
+import ch.cern.todo.cache.CategoryCache;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryResolverTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private CategoryCache categoryCache;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CategoryResolver categoryResolver;
+
+    @BeforeEach
+    void setUp() {
+        categoryResolver = new CategoryResolver(categoryRepository, categoryCache, transactionManager, eventPublisher);
+    }
+
+    @Test
+    public void getOrCreateReturnsExistingCategory() {
+        // given
+        Category category = Category.create(1L, "category", "description");
+        when(categoryCache.findByName("category")).thenReturn(Optional.of(category));
+
+        // when
+        Category resolvedCategory = categoryResolver.getOrCreate(Category.create("category", "description"));
+
+        // then
+        assertThat(resolvedCategory).isSameAs(category);
+        verify(categoryRepository, times(0)).saveAndFlush(any());
+    }
+
+    @Test
+    public void getOrCreateInsertsMissingCategory() {
+        // given
+        Category createdCategory = Category.create(1L, "category", "description");
+        when(categoryCache.findByName("category")).thenReturn(Optional.empty());
+        when(categoryRepository.saveAndFlush(any())).thenReturn(createdCategory);
+
+        // when
+        Category resolvedCategory = categoryResolver.getOrCreate(Category.create("category", "description"));
+
+        // then
+        assertThat(resolvedCategory).isSameAs(createdCategory);
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
+    }
+
+    @Test
+    public void getOrCreateReadsTheWinnerAfterAConflict() {
+        // given
+        Category concurrentCategory = Category.create(2L, "category", "description");
+        when(categoryCache.findByName("category")).thenReturn(Optional.empty(), Optional.of(concurrentCategory));
+        when(categoryRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("unique constraint violation"));
+
+        // when
+        Category resolvedCategory = categoryResolver.getOrCreate(Category.create("category", "description"));
+
+        // then
+        assertThat(resolvedCategory).isSameAs(concurrentCategory);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
+    }
+
+    @Test
+    public void getOrCreateGivesUpAfterRepeatedConflicts() {
+        // given
+        when(categoryCache.findByName("category")).thenReturn(Optional.empty());
+        when(categoryRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("unique constraint violation"));
+
+        // then
+        assertThrows(DataIntegrityViolationException.class,
+                () -> categoryResolver.getOrCreate(Category.create("category", "description")));
+        verify(categoryRepository, times(3)).saveAndFlush(any());
+    }
+
+    @Test
+    public void withCategoryRetriesOnceWithReloadedCategory() {
+        // given
+        Category stale = Category.create(1L, "category", "description");
+        Category reloaded = Category.create(2L, "category", "description");
+        when(categoryCache.findByName("category")).thenReturn(Optional.of(stale), Optional.of(reloaded));
+
+        // when
+        Long writtenCategoryId = categoryResolver.withCategory(Category.create("category", "description"), category -> {
+            if (category == stale) {
+                throw new DataIntegrityViolationException("foreign key violation");
+            }
+            return category.getId();
+        });
+
+        // then
+        assertThat(writtenCategoryId).isEqualTo(2L);
+        verify(categoryCache, times(1)).invalidate("category");
+    }
+
+    @Test
+    public void withCategoryGivesUpAfterSecondViolation() {
+        // given
+        Category category = Category.create(1L, "category", "description");
+        when(categoryCache.findByName("category")).thenReturn(Optional.of(category));
+
+        // then
+        assertThrows(DataIntegrityViolationException.class,
+                () -> categoryResolver.withCategory(Category.create("category", "description"), resolved -> {
+                    throw new DataIntegrityViolationException("value too long");
+                }));
+        verify(categoryCache, times(1)).invalidate("category");
+    }
+}
@@ -1,8 +1,15 @@
 package ch.cern.todo.service.impl;
 
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.ReassignResult;
+import ch.cern.todo.event.CategoryChangedEvent;
+import ch.cern.todo.event.TasksReassignedEvent;
 import ch.cern.todo.exception.CategoryAlreadyExistException;
 import ch.cern.todo.exception.CategoryNotFoundException;
 import ch.cern.todo.exception.CategoryWithAssociatedTasksException;
+import ch.cern.todo.exception.InvalidReassignmentException;
+import ch.cern.todo.exception.StaleVersionException;
 import ch.cern.todo.model.Category;
 import ch.cern.todo.repository.CategoryRepository;
 import ch.cern.todo.repository.TaskRepository;
@@ -10,11 +17,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -27,6 +39,10 @@ class CategoryServiceImplTest {
     private CategoryRepository categoryRepository;
     @Mock
     private TaskRepository taskRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private TodoProperties todoProperties = new TodoProperties();
     @InjectMocks
     private CategoryServiceImpl categoryService;
 
@@ -50,6 +66,18 @@ class CategoryServiceImplTest {
         verify(categoryRepository, times(1)).findAll();
     }
 
+    @Test
+    public void retrieveAllCategoryFieldsKeepsRequestedFields() {
+        // given
+        when(categoryRepository.findAll()).thenReturn(List.of(Category.create(1L, "sport", "all sports")));
+
+        // when
+        List<Map<String, Object>> categories = categoryService.retrieveAllCategoryFields("name,id");
+
+        // then
+        assertThat(categories).isEqualTo(List.of(Map.of("id", 1L, "name", "sport")));
+    }
+
     @Test
     public void createCategorySuccess() {
         // given
@@ -57,7 +85,6 @@ class CategoryServiceImplTest {
         String description = "description";
         Category category = Category.create(name, description);
 
-        when(categoryRepository.existsByName(category.getName())).thenReturn(false);
         when(categoryRepository.saveAndFlush(category)).thenReturn(category);
 
         // when
@@ -68,6 +95,7 @@ class CategoryServiceImplTest {
         assertThat(createdCategory.getDescription()).isEqualTo(description);
 
         verify(categoryRepository, times(1)).saveAndFlush(category);
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
@@ -77,12 +105,13 @@ class CategoryServiceImplTest {
         String description = "description";
         Category category = Category.create(name, description);
 
-        when(categoryRepository.existsByName(category.getName())).thenReturn(true); // if true -> throws CategoryAlreadyExistException
+        when(categoryRepository.saveAndFlush(category))
+                .thenThrow(new DataIntegrityViolationException("unique constraint violation"));
 
         // then
         assertThrows(CategoryAlreadyExistException.class, () -> categoryService.createCategory(category));
 
-        verify(categoryRepository, times(0)).saveAndFlush(category);
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
@@ -93,9 +122,9 @@ class CategoryServiceImplTest {
         String description = "description";
         Category category = Category.create(id, name, description);
 
-        when(categoryRepository.existsById(category.getId())).thenReturn(true);
-        when(categoryRepository.existsByNameAndIdNot(category.getName(), category.getId())).thenReturn(false);
-        when(categoryRepository.saveAndFlush(category)).thenReturn(category);
+        category.setVersion(0L);
+
+        when(categoryRepository.updateCategory(id, name, description, 0L)).thenReturn(1);
 
         // when
         Category createdCategory = categoryService.updateCategory(category);
@@ -103,8 +132,12 @@ class CategoryServiceImplTest {
         // then
         assertThat(createdCategory.getName()).isEqualTo(name);
         assertThat(createdCategory.getDescription()).isEqualTo(description);
+        assertThat(createdCategory.getVersion()).isEqualTo(1L);
 
-        verify(categoryRepository, times(1)).saveAndFlush(category);
+        // the caches keyed by name evict the previous name from the id, without reading the row back
+        verify(categoryRepository, times(0)).findById(id);
+        verify(categoryRepository, times(0)).existsById(id);
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
@@ -115,13 +148,32 @@ class CategoryServiceImplTest {
         String description = "description";
         Category category = Category.create(id, name, description);
 
-        when(categoryRepository.existsById(category.getId())).thenReturn(false);
+        when(categoryRepository.updateCategory(id, name, description, null)).thenReturn(0);
 
         // when
         assertThrows(CategoryNotFoundException.class, () -> categoryService.updateCategory(category));
 
         // then
-        verify(categoryRepository, times(0)).saveAndFlush(category);
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
+    }
+
+    @Test
+    public void updateCategoryStaleVersionException() {
+        // given
+        Long id = 1L;
+        String name = "name";
+        String description = "description";
+        Category category = Category.create(id, name, description);
+        category.setVersion(0L);
+
+        when(categoryRepository.updateCategory(id, name, description, 0L)).thenReturn(0);
+        when(categoryRepository.existsById(id)).thenReturn(true);
+
+        // when
+        assertThrows(StaleVersionException.class, () -> categoryService.updateCategory(category));
+
+        // then
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
@@ -132,14 +184,14 @@ class CategoryServiceImplTest {
         String description = "description";
         Category category = Category.create(id, name, description);
 
-        when(categoryRepository.existsById(category.getId())).thenReturn(true);
-        when(categoryRepository.existsByNameAndIdNot(category.getName(), category.getId())).thenReturn(true);
+        when(categoryRepository.updateCategory(id, name, description, null))
+                .thenThrow(new DataIntegrityViolationException("unique constraint violation"));
 
         // when
         assertThrows(CategoryAlreadyExistException.class, () -> categoryService.updateCategory(category));
 
         // then
-        verify(categoryRepository, times(0)).saveAndFlush(category);
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
@@ -179,40 +231,112 @@ class CategoryServiceImplTest {
     public void deleteCategorySuccess() {
         // given
         Long id = 1L;
-        when(categoryRepository.existsById(id)).thenReturn(true);
-        when(taskRepository.existsByCategoryId(id)).thenReturn(false);
+        when(categoryRepository.deleteCategoryWithoutTasks(id)).thenReturn(1);
 
         // when
         categoryService.deleteCategoryById(id);
 
         // then
-        verify(categoryRepository, times(1)).deleteById(id);
+        verify(categoryRepository, times(0)).existsById(id);
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
     public void deleteCategoryNotFoundException() {
         // given
         Long id = 1L;
+        when(categoryRepository.deleteCategoryWithoutTasks(id)).thenReturn(0);
         when(categoryRepository.existsById(id)).thenReturn(false);
 
         // when
         assertThrows(CategoryNotFoundException.class, () -> categoryService.deleteCategoryById(id));
 
         // then
-        verify(categoryRepository, times(0)).deleteById(id);
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
     }
 
     @Test
     public void deleteCategoryRelatedToTasksException() {
         // given
         Long id = 1L;
+        when(categoryRepository.deleteCategoryWithoutTasks(id)).thenReturn(0);
         when(categoryRepository.existsById(id)).thenReturn(true);
-        when(taskRepository.existsByCategoryId(id)).thenReturn(true);
 
         // when
         assertThrows(CategoryWithAssociatedTasksException.class, () -> categoryService.deleteCategoryById(id));
 
         // then
-        verify(categoryRepository, times(0)).deleteById(id);
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
+    }
+
+    @Test
+    public void deleteCategoriesByIdsReportsEachId() {
+        // given
+        when(categoryRepository.findExistingIds(List.of(1L, 2L, 3L))).thenReturn(List.of(2L, 3L));
+        when(categoryRepository.findExistingIds(Set.of(2L, 3L))).thenReturn(List.of(3L));
+
+        // when
+        List<DeleteResult> results = categoryService.deleteCategoriesByIds(List.of(1L, 2L, 3L));
+
+        // then
+        assertThat(results).isEqualTo(List.of(DeleteResult.notFound(1L), DeleteResult.deleted(2L), DeleteResult.withTasks(3L)));
+        verify(categoryRepository, times(1)).deleteCategoriesWithoutTasks(Set.of(2L, 3L));
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
+    }
+
+    @Test
+    public void reassignTasksAndDeleteSource() {
+        // given
+        Category target = Category.create(2L, "target", "description");
+        when(categoryRepository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(categoryRepository.getReferenceById(2L)).thenReturn(target);
+        when(taskRepository.reassignCategory(1L, target)).thenReturn(3);
+        when(categoryRepository.deleteCategoryWithoutTasks(1L)).thenReturn(1);
+
+        // when
+        ReassignResult result = categoryService.reassignTasks(1L, 2L, true);
+
+        // then
+        assertThat(result).isEqualTo(new ReassignResult(1L, 2L, 3, true));
+        verify(eventPublisher, times(1)).publishEvent(any(CategoryChangedEvent.class));
+        verify(eventPublisher, times(1)).publishEvent(any(TasksReassignedEvent.class));
+    }
+
+    @Test
+    public void reassignTasksKeepsSource() {
+        // given
+        Category target = Category.create(2L, "target", "description");
+        when(categoryRepository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(categoryRepository.getReferenceById(2L)).thenReturn(target);
+        when(taskRepository.reassignCategory(1L, target)).thenReturn(3);
+
+        // when
+        ReassignResult result = categoryService.reassignTasks(1L, 2L, false);
+
+        // then
+        assertThat(result).isEqualTo(new ReassignResult(1L, 2L, 3, false));
+        verify(categoryRepository, times(0)).deleteCategoryWithoutTasks(1L);
+        verify(eventPublisher, times(0)).publishEvent(any(CategoryChangedEvent.class));
+    }
+
+    @Test
+    public void reassignTasksTargetNotFoundException() {
+        // given
+        when(categoryRepository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(1L));
+
+        // when
+        assertThrows(CategoryNotFoundException.class, () -> categoryService.reassignTasks(1L, 2L, true));
+
+        // then
+        verify(taskRepository, times(0)).reassignCategory(any(), any());
+    }
+
+    @Test
+    public void reassignTasksToItselfException() {
+        // when
+        assertThrows(InvalidReassignmentException.class, () -> categoryService.reassignTasks(1L, 1L, false));
+
+        // then
+        verify(taskRepository, times(0)).reassignCategory(any(), any());
     }
-}
\ No newline at end of file
+}
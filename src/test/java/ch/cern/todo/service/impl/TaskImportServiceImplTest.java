@@ -0,0 +1,140 @@
+package ch.cern.todo.service.impl;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.CategoryDto;
+import ch.cern.todo.dto.TaskDto;
+import ch.cern.todo.dto.TaskImportResult;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.model.Category;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskImportServiceImplTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private CategoryRepository categoryRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TodoProperties todoProperties = new TodoProperties();
+    private TaskImportServiceImpl taskImportService;
+
+    @BeforeEach
+    void setUp() {
+        todoProperties.getBulkImport().setChunkSize(2);
+        taskImportService = new TaskImportServiceImpl(taskRepository, categoryRepository,
+                Validation.buildDefaultValidatorFactory().getValidator(), transactionManager, eventPublisher, todoProperties);
+    }
+
+    @Test
+    public void importTasksResolvesEachCategoryOnce() {
+        // given
+        Category category = Category.create(5L, "category", "description");
+        List<TaskDto> taskDtos = List.of(taskDto("first", "category"), taskDto("second", "category"),
+                taskDto("third", "category"));
+
+        when(categoryRepository.findAllByNameIn(anyCollection())).thenReturn(Collections.singletonList(category));
+        assignIdsOnSave();
+
+        // when
+        List<TaskImportResult> results = taskImportService.importTasks(taskDtos);
+
+        // then
+        assertThat(results).extracting(TaskImportResult::getStatus).containsOnly(TaskImportResult.Status.CREATED);
+        assertThat(results).extracting(TaskImportResult::getId).containsExactly(1L, 2L, 3L);
+
+        verify(categoryRepository, times(1)).findAllByNameIn(anyCollection());
+        verify(taskRepository, times(2)).saveAll(anyList());
+        verify(transactionManager, times(2)).commit(any());
+        verify(eventPublisher, times(3)).publishEvent(any(TaskChangedEvent.class));
+    }
+
+    @Test
+    public void importTasksReportsInvalidItems() {
+        // given
+        Category category = Category.create(5L, "category", "description");
+        TaskDto invalid = taskDto("", "category");
+        invalid.setDeadline(LocalDateTime.now().minusDays(1));
+        List<TaskDto> taskDtos = List.of(taskDto("first", "category"), invalid);
+
+        when(categoryRepository.findAllByNameIn(anyCollection())).thenReturn(Collections.singletonList(category));
+        assignIdsOnSave();
+
+        // when
+        List<TaskImportResult> results = taskImportService.importTasks(taskDtos);
+
+        // then
+        assertThat(results.get(0).getStatus()).isEqualTo(TaskImportResult.Status.CREATED);
+        assertThat(results.get(1).getStatus()).isEqualTo(TaskImportResult.Status.FAILED);
+        assertThat(results.get(1).getErrors())
+                .containsExactly("Task deadline should be in the future", "Task name cannot be blank");
+    }
+
+    @Test
+    public void importTasksIsolatesRowsOfFailedChunk() {
+        // given
+        Category category = Category.create(5L, "category", "description");
+        List<TaskDto> taskDtos = List.of(taskDto("first", "category"), taskDto("second", "category"));
+        AtomicLong ids = new AtomicLong();
+
+        when(categoryRepository.findAllByNameIn(anyCollection())).thenReturn(Collections.singletonList(category));
+        when(taskRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Task> tasks = invocation.getArgument(0);
+            if (tasks.size() > 1 || tasks.get(0).getName().equals("second")) {
+                throw new DataIntegrityViolationException("constraint violated");
+            }
+            tasks.forEach(task -> task.setId(ids.incrementAndGet()));
+            return tasks;
+        });
+
+        // when
+        List<TaskImportResult> results = taskImportService.importTasks(taskDtos);
+
+        // then
+        assertThat(results.get(0).getStatus()).isEqualTo(TaskImportResult.Status.CREATED);
+        assertThat(results.get(0).getId()).isEqualTo(1L);
+        assertThat(results.get(1).getStatus()).isEqualTo(TaskImportResult.Status.FAILED);
+        assertThat(results.get(1).getErrors()).containsExactly("constraint violated");
+    }
+
+    private void assignIdsOnSave() {
+        AtomicLong ids = new AtomicLong();
+        when(taskRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Task> tasks = invocation.getArgument(0);
+            tasks.forEach(task -> task.setId(ids.incrementAndGet()));
+            return tasks;
+        });
+    }
+
+    private static TaskDto taskDto(String name, String categoryName) {
+        return TaskDto.builder()
+                .name(name)
+                .description("description")
+                .deadline(LocalDateTime.now().plusMonths(1))
+                .categoryDto(CategoryDto.builder().name(categoryName).build())
+                .build();
+    }
+}
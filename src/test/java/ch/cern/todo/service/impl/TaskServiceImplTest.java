@@ -1,20 +1,47 @@
 package ch.cern.todo.service.impl;
 
+import ch.cern.todo.cache.CategoryCache;
+import ch.cern.todo.cache.UpcomingTaskIndex;
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.dto.BatchResult;
+import ch.cern.todo.dto.ChangedTask;
+import ch.cern.todo.dto.DeleteResult;
+import ch.cern.todo.dto.FieldsPage;
+import ch.cern.todo.dto.TaskChanges;
+import ch.cern.todo.dto.TaskPage;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.exception.InvalidCursorException;
+import ch.cern.todo.exception.InvalidFieldsException;
+import ch.cern.todo.exception.StaleVersionException;
 import ch.cern.todo.exception.TaskNotFoundException;
+import ch.cern.todo.exception.TooManyIdsException;
 import ch.cern.todo.model.Category;
 import ch.cern.todo.model.Task;
+import ch.cern.todo.model.TaskTombstone;
+import ch.cern.todo.pagination.ChangeToken;
+import ch.cern.todo.pagination.TaskCursor;
 import ch.cern.todo.repository.CategoryRepository;
+import ch.cern.todo.repository.FieldSelection;
+import ch.cern.todo.repository.TaskFilter;
 import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.repository.TaskRow;
+import ch.cern.todo.repository.TaskTombstoneRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -23,34 +50,146 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class TaskServiceImplTest {
 
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private TaskTombstoneRepository taskTombstoneRepository;
     @Mock
     private CategoryRepository categoryRepository;
     @Mock
-    private TaskRepository taskRepository;
+    private CategoryCache categoryCache;
+    @Mock
+    private CategoryResolver categoryResolver;
+    @Mock
+    private UpcomingTaskIndex upcomingTaskIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private TodoProperties todoProperties = new TodoProperties();
     @InjectMocks
     private TaskServiceImpl taskService;
 
     @Test
-    public void retrieveAllTasks() {
+    public void retrieveTasksLastPage() {
         // given
         String name = "name";
         String description = "description";
         LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
         Category category = Category.create("categoryName", "CategoryDescription");
-        Task task = Task.linkToCategory(Task.create(name, description, deadline), category);
+        Task task = Task.linkToCategory(Task.create(1L, name, description, deadline), category);
+
+        when(taskRepository.findPage(TaskFilter.none(), null, 51)).thenReturn(Collections.singletonList(task));
+
+        // when
+        TaskPage page = taskService.retrieveTasks(TaskFilter.none(), null, null);
+
+        // then
+        assertThat(page.getItems().size()).isEqualTo(1);
+        assertThat(page.getItems().get(0).getName()).isEqualTo(name);
+        assertThat(page.getItems().get(0).getDescription()).isEqualTo(description);
+        assertThat(page.getItems().get(0).getCategory()).isNotNull();
+        assertThat(page.getNextCursor()).isNull();
+
+        verify(taskRepository, times(1)).findPage(TaskFilter.none(), null, 51);
+    }
+
+    @Test
+    public void retrieveTasksReturnsCursorOfLastItem() {
+        // given
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        Task first = Task.create(1L, "first", "description", deadline);
+        Task second = Task.create(2L, "second", "description", deadline);
+        TaskCursor cursor = new TaskCursor(deadline.minusDays(1), 7L);
+
+        when(taskRepository.findPage(TaskFilter.none(), cursor, 2)).thenReturn(List.of(first, second));
+
+        // when
+        TaskPage page = taskService.retrieveTasks(TaskFilter.none(), cursor.encode(), 1);
+
+        // then
+        assertThat(page.getItems().size()).isEqualTo(1);
+        assertThat(page.getItems().get(0).getId()).isEqualTo(1L);
+        assertThat(page.getNextCursor()).isEqualTo(TaskCursor.after(first).encode());
+    }
+
+    @Test
+    public void retrieveTasksLimitIsCapped() {
+        // given
+        when(taskRepository.findPage(TaskFilter.none(), null, 501)).thenReturn(Collections.emptyList());
+
+        // when
+        TaskPage page = taskService.retrieveTasks(TaskFilter.none(), null, 100_000);
+
+        // then
+        assertThat(page.getItems().size()).isEqualTo(0);
+        verify(taskRepository, times(1)).findPage(TaskFilter.none(), null, 501);
+    }
+
+    @Test
+    public void retrieveTasksInvalidCursorException() {
+        assertThrows(InvalidCursorException.class, () -> taskService.retrieveTasks(TaskFilter.none(), "not-a-cursor", 10));
+
+        verify(taskRepository, times(0)).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    public void retrieveTasksByCategoryNameFiltersOnCategoryId() {
+        // given
+        LocalDateTime dueBefore = LocalDateTime.now().plusMonths(1);
+        Category category = Category.create(4L, "categoryName", "CategoryDescription");
+        TaskFilter filter = TaskFilter.builder().dueBefore(dueBefore).categoryName("categoryName").build();
+        TaskFilter resolvedFilter = TaskFilter.builder().dueBefore(dueBefore).categoryId(4L).build();
 
-        when(taskRepository.findAll()).thenReturn(Collections.singletonList(task));
+        when(categoryCache.findByName("categoryName")).thenReturn(Optional.of(category));
+        when(taskRepository.findPage(resolvedFilter, null, 51)).thenReturn(Collections.emptyList());
 
         // when
-        List<Task> tasks = taskService.retrieveAllTasks();
+        taskService.retrieveTasks(filter, null, null);
 
         // then
-        assertThat(tasks.size()).isEqualTo(1);
-        assertThat(tasks.get(0).getName()).isEqualTo(name);
-        assertThat(tasks.get(0).getDescription()).isEqualTo(description);
-        assertThat(tasks.get(0).getCategory()).isNotNull();
+        verify(taskRepository, times(1)).findPage(resolvedFilter, null, 51);
+    }
+
+    @Test
+    public void retrieveTasksByUnknownCategoryNameIsEmpty() {
+        // given
+        TaskFilter filter = TaskFilter.builder().categoryName("unknown").build();
+
+        when(categoryCache.findByName("unknown")).thenReturn(Optional.empty());
 
-        verify(taskRepository, times(1)).findAll();
+        // when
+        TaskPage page = taskService.retrieveTasks(filter, null, null);
+
+        // then
+        assertThat(page.getItems().isEmpty()).isTrue();
+        verify(taskRepository, times(0)).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    public void retrieveTaskFieldsReturnsCursorOfLastItem() {
+        // given
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        TaskRow first = new TaskRow(Map.of("name", "first"), new TaskCursor(deadline, 1L));
+        TaskRow second = new TaskRow(Map.of("name", "second"), new TaskCursor(deadline, 2L));
+
+        when(taskRepository.findPageFields(eq(TaskFilter.none()), isNull(), eq(2), any(FieldSelection.class)))
+                .thenReturn(List.of(first, second));
+
+        // when
+        FieldsPage page = taskService.retrieveTaskFields(TaskFilter.none(), null, 1, "name");
+
+        // then
+        assertThat(page.getItems()).isEqualTo(List.of(Map.of("name", "first")));
+        assertThat(page.getNextCursor()).isEqualTo(new TaskCursor(deadline, 1L).encode());
+    }
+
+    @Test
+    public void retrieveTaskFieldsInvalidFieldsException() {
+        // when
+        assertThrows(InvalidFieldsException.class, () -> taskService.retrieveTaskFields(TaskFilter.none(), null, null, "secret"));
+
+        // then
+        verify(taskRepository, times(0)).findPageFields(any(), any(), anyInt(), any());
     }
 
     @Test
@@ -62,7 +201,7 @@ class TaskServiceImplTest {
         Category category = Category.create("categoryName", "CategoryDescription");
         Task task = Task.create(name, description, deadline);
 
-        when(categoryRepository.findCategoriesByName("categoryName")).thenReturn(Optional.of(category));
+        resolvesTo(category);
         when(taskRepository.saveAndFlush(task)).thenReturn(task);
 
         // when
@@ -74,6 +213,7 @@ class TaskServiceImplTest {
         assertThat(createdTask.getCategory()).isNotNull();
 
         verify(taskRepository, times(1)).saveAndFlush(task);
+        verify(eventPublisher, times(1)).publishEvent(any(TaskChangedEvent.class));
     }
 
     @Test
@@ -86,9 +226,10 @@ class TaskServiceImplTest {
         Category category = Category.create("categoryName", "CategoryDescription");
         Task task = Task.create(id, name, description, deadline);
 
-        when(taskRepository.existsById(task.getId())).thenReturn(true);
-        when(categoryRepository.findCategoriesByName("categoryName")).thenReturn(Optional.of(category));
-        when(taskRepository.saveAndFlush(task)).thenReturn(task);
+        task.setVersion(3L);
+
+        resolvesTo(category);
+        when(taskRepository.updateTask(id, name, description, deadline, category, 3L)).thenReturn(1);
 
         // when
         Task createdTask = taskService.updateTask(task, category);
@@ -97,8 +238,11 @@ class TaskServiceImplTest {
         assertThat(createdTask.getName()).isEqualTo(name);
         assertThat(createdTask.getDescription()).isEqualTo(description);
         assertThat(createdTask.getCategory()).isNotNull();
+        assertThat(createdTask.getVersion()).isEqualTo(4L);
 
-        verify(taskRepository, times(1)).saveAndFlush(task);
+        verify(taskRepository, times(0)).existsById(id);
+        verify(taskRepository, times(0)).saveAndFlush(task);
+        verify(eventPublisher, times(1)).publishEvent(any(TaskChangedEvent.class));
     }
 
     @Test
@@ -111,7 +255,8 @@ class TaskServiceImplTest {
         Category category = Category.create("categoryName", "CategoryDescription");
         Task task = Task.create(id, name, description, deadline);
 
-        when(taskRepository.existsById(task.getId())).thenReturn(false);
+        resolvesTo(category);
+        when(taskRepository.updateTask(id, name, description, deadline, category, null)).thenReturn(0);
 
         // when
         assertThrows(TaskNotFoundException.class, () -> taskService.updateTask(task, category));
@@ -119,6 +264,25 @@ class TaskServiceImplTest {
         verify(taskRepository, times(0)).saveAndFlush(task);
     }
 
+    @Test
+    public void updateTaskStaleVersionException() {
+        // given
+        Long id = 1L;
+        String name = "name";
+        String description = "description";
+        LocalDateTime deadline = LocalDateTime.now().plusMonths(1);
+        Category category = Category.create("categoryName", "CategoryDescription");
+        Task task = Task.create(id, name, description, deadline);
+        task.setVersion(3L);
+
+        resolvesTo(category);
+        when(taskRepository.updateTask(id, name, description, deadline, category, 3L)).thenReturn(0);
+        when(taskRepository.existsById(id)).thenReturn(true);
+
+        // when
+        assertThrows(StaleVersionException.class, () -> taskService.updateTask(task, category));
+    }
+
     @Test
     public void findTaskSuccess() {
         // given
@@ -158,13 +322,15 @@ class TaskServiceImplTest {
         // given
         Long id = 1L;
 
-        when(taskRepository.existsById(id)).thenReturn(true);
+        when(taskTombstoneRepository.recordDeletions(List.of(id))).thenReturn(1);
+        when(taskRepository.deleteTask(id)).thenReturn(1);
 
         // when
         taskService.deleteTaskById(id);
 
         // then
-        verify(taskRepository, times(1)).deleteById(id);
+        verify(taskRepository, times(0)).existsById(id);
+        verify(eventPublisher, times(1)).publishEvent(any(TaskChangedEvent.class));
     }
 
     @Test
@@ -172,12 +338,144 @@ class TaskServiceImplTest {
         // given
         Long id = 1L;
 
-        when(taskRepository.existsById(id)).thenReturn(false);
+        when(taskTombstoneRepository.recordDeletions(List.of(id))).thenReturn(0);
 
         // when
         assertThrows(TaskNotFoundException.class, () -> taskService.deleteTaskById(id));
 
         // then
-        verify(taskRepository, times(0)).deleteById(id);
+        verify(taskRepository, times(0)).deleteTask(id);
+        verify(eventPublisher, times(0)).publishEvent(any(TaskChangedEvent.class));
+    }
+
+    @Test
+    public void findTasksByIdsReportsMissingIds() {
+        // given
+        Category category = Category.create("categoryName", "CategoryDescription");
+        Task task = Task.linkToCategory(Task.create(2L, "name", "description", LocalDateTime.now().plusMonths(1)), category);
+
+        when(taskRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(task));
+
+        // when
+        BatchResult<Task> result = taskService.findTasksByIds(List.of(1L, 2L, 1L));
+
+        // then
+        assertThat(result.getItems()).isEqualTo(List.of(task));
+        assertThat(result.getMissingIds()).isEqualTo(List.of(1L));
+    }
+
+    @Test
+    public void deleteTasksByIdsReportsMissingIds() {
+        // given
+        when(taskRepository.findExistingIds(List.of(1L, 2L))).thenReturn(List.of(2L));
+
+        // when
+        List<DeleteResult> results = taskService.deleteTasksByIds(List.of(1L, 2L));
+
+        // then
+        assertThat(results).isEqualTo(List.of(DeleteResult.notFound(1L), DeleteResult.deleted(2L)));
+        verify(taskTombstoneRepository, times(1)).recordDeletions(Set.of(2L));
+        verify(taskRepository, times(1)).deleteTasks(Set.of(2L));
+    }
+
+    @Test
+    public void findChangesSinceMergesChangesAndTombstonesInSequenceOrder() {
+        // given
+        LocalDateTime settled = LocalDateTime.now().minusMinutes(1);
+        Task first = changedTask(1L, 2L, settled);
+        Task third = changedTask(2L, 5L, settled);
+
+        when(taskRepository.findChangedSince(eq(1L), any(Limit.class))).thenReturn(List.of(first, third));
+        when(taskTombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeq(eq(1L), any(Limit.class)))
+                .thenReturn(List.of(new TaskTombstone(3L, 9L, settled)));
+
+        // when
+        TaskChanges changes = taskService.findChangesSince(new ChangeToken(1L).encode(), 2);
+
+        // then
+        assertThat(changes.getChanged()).extracting(ChangedTask::getId).containsExactly(first.getId());
+        assertThat(changes.getDeleted()).isEqualTo(List.of(9L));
+        assertThat(changes.getNext()).isEqualTo(new ChangeToken(3L).encode());
+        assertThat(changes.isHasMore()).isTrue();
+    }
+
+    @Test
+    public void findChangesSinceDoesNotMoveTheTokenPastRecentChanges() {
+        // given
+        Task settledTask = changedTask(1L, 2L, LocalDateTime.now().minusMinutes(1));
+        Task recentTask = changedTask(2L, 4L, LocalDateTime.now());
+
+        when(taskRepository.findChangedSince(eq(0L), any(Limit.class))).thenReturn(List.of(settledTask, recentTask));
+        when(taskTombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeq(eq(0L), any(Limit.class)))
+                .thenReturn(Collections.emptyList());
+
+        // when
+        TaskChanges changes = taskService.findChangesSince(null, null);
+
+        // then
+        assertThat(changes.getChanged()).extracting(ChangedTask::getId).containsExactly(settledTask.getId(), recentTask.getId());
+        // the recent change is returned again by the next sync, a lower sequence value may still be committed
+        assertThat(changes.getNext()).isEqualTo(new ChangeToken(2L).encode());
+        assertThat(changes.isHasMore()).isFalse();
+    }
+
+    @Test
+    public void findChangesSinceHasNoMoreWhileTheTokenWaitsForRecentChanges() {
+        // given
+        Category category = Category.create(7L, "category", "description");
+        Task recentTask = Task.linkToCategory(changedTask(1L, 2L, LocalDateTime.now()), category);
+        Task laterTask = changedTask(2L, 3L, LocalDateTime.now());
+
+        when(taskRepository.findChangedSince(eq(1L), any(Limit.class))).thenReturn(List.of(recentTask, laterTask));
+        when(taskTombstoneRepository.findByChangeSeqGreaterThanOrderByChangeSeq(eq(1L), any(Limit.class)))
+                .thenReturn(Collections.emptyList());
+
+        // when
+        TaskChanges changes = taskService.findChangesSince(new ChangeToken(1L).encode(), 1);
+
+        // then
+        assertThat(changes.getNext()).isEqualTo(new ChangeToken(1L).encode());
+        // more changes are pending, but requesting them now would return the same page
+        assertThat(changes.isHasMore()).isFalse();
+        // the category is referenced, not embedded, its renames do not move the change sequence of the task
+        assertThat(changes.getChanged()).extracting(ChangedTask::getCategoryId).containsExactly(7L);
+    }
+
+    @Test
+    public void findUpcomingTasksCapsTheLimit() {
+        // given
+        when(upcomingTaskIndex.findUpcoming(500)).thenReturn(Collections.emptyList());
+
+        // when
+        taskService.findUpcomingTasks(10_000);
+
+        // then
+        verify(upcomingTaskIndex, times(1)).findUpcoming(500);
+        verifyNoInteractions(taskRepository);
+    }
+
+    // runs the write passed to the resolver with the given category
+    private void resolvesTo(Category category) {
+        when(categoryResolver.withCategory(eq(category), any()))
+                .thenAnswer(invocation -> invocation.<Function<Category, ?>>getArgument(1).apply(category));
+    }
+
+    private static Task changedTask(Long id, Long changeSeq, LocalDateTime updatedAt) {
+        Task task = Task.create(id, "name", "description", LocalDateTime.now().plusMonths(1));
+        task.setChangeSeq(changeSeq);
+        task.setUpdatedAt(updatedAt);
+        return task;
+    }
+
+    @Test
+    public void deleteTasksByIdsTooManyIdsException() {
+        // given
+        todoProperties.getBatch().setMaxIds(2);
+
+        // when
+        assertThrows(TooManyIdsException.class, () -> taskService.deleteTasksByIds(List.of(1L, 2L, 3L)));
+
+        // then
+        verify(taskRepository, times(0)).deleteTasks(anyCollection());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package ch.cern.todo.sweeper;
+
+import ch.cern.todo.config.TodoProperties;
+import ch.cern.todo.event.TaskChangedEvent;
+import ch.cern.todo.event.TasksOverdueEvent;
+import ch.cern.todo.model.Task;
+import ch.cern.todo.repository.DueTask;
+import ch.cern.todo.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverdueSweeperTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OverdueSweeper overdueSweeper;
+
+    @BeforeEach
+    void setUp() {
+        overdueSweeper = new OverdueSweeper(taskRepository, transactionManager, eventPublisher,
+                new TodoProperties(), meterRegistry, scheduler);
+    }
+
+    @Test
+    public void firstSweepFlipsTasksAlreadyDue() {
+        // given
+        Task passed = task(1L, LocalDateTime.now().minusHours(1));
+        when(taskRepository.findOpenDueBy(any(), any(Limit.class)))
+                .thenReturn(List.of(new DueTask(1L, passed.getDeadline())));
+        when(taskRepository.findOpenDueBetween(any(), any())).thenReturn(Collections.emptyList());
+        when(taskRepository.lockOpenDue(eq(List.of(1L)), any())).thenReturn(List.of(passed));
+
+        // when
+        overdueSweeper.sweep();
+
+        // then
+        verify(taskRepository, times(1)).markOverdue(List.of(1L));
+        verify(eventPublisher, times(1)).publishEvent(any(TasksOverdueEvent.class));
+        verify(transactionManager, times(1)).commit(any());
+        assertThat(meterRegistry.get("todo.overdue.transitions").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("todo.overdue.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void queuedTaskIsFlippedOnceDue() {
+        // given
+        when(taskRepository.findOpenDueBy(any(), any(Limit.class))).thenReturn(Collections.emptyList());
+        when(taskRepository.findOpenDueBetween(any(), any())).thenReturn(Collections.emptyList());
+        overdueSweeper.sweep();
+        Task due = task(1L, LocalDateTime.now().minusSeconds(1));
+        when(taskRepository.lockOpenDue(eq(List.of(1L)), any())).thenReturn(List.of(due));
+
+        // when
+        overdueSweeper.onTaskChanged(TaskChangedEvent.updated(due));
+        // outside of the window, loaded by a later refill
+        overdueSweeper.onTaskChanged(TaskChangedEvent.updated(task(2L, LocalDateTime.now().plusDays(1))));
+        overdueSweeper.sweep();
+
+        // then
+        verify(taskRepository, times(1)).markOverdue(List.of(1L));
+        assertThat(overdueSweeper.queueSize()).isZero();
+        // the window is refilled once half of it is consumed, not on every sweep
+        verify(taskRepository, times(1)).findOpenDueBetween(any(), any());
+    }
+
+    @Test
+    public void staleEntryIsDroppedWithoutUpdate() {
+        // given
+        when(taskRepository.findOpenDueBy(any(), any(Limit.class))).thenReturn(Collections.emptyList());
+        when(taskRepository.findOpenDueBetween(any(), any()))
+                .thenReturn(List.of(new DueTask(1L, LocalDateTime.now().minusSeconds(1))));
+        // moved to a later deadline or deleted in the meantime
+        when(taskRepository.lockOpenDue(eq(List.of(1L)), any())).thenReturn(Collections.emptyList());
+
+        // when
+        overdueSweeper.sweep();
+
+        // then
+        verify(taskRepository, times(0)).markOverdue(anyList());
+        verify(eventPublisher, times(0)).publishEvent(any(TasksOverdueEvent.class));
+        assertThat(overdueSweeper.queueSize()).isZero();
+    }
+
+    @Test
+    public void failedBatchIsRetriedByTheNextSweep() {
+        // given
+        when(taskRepository.findOpenDueBy(any(), any(Limit.class))).thenReturn(Collections.emptyList());
+        when(taskRepository.findOpenDueBetween(any(), any()))
+                .thenReturn(List.of(new DueTask(1L, LocalDateTime.now().minusSeconds(1))));
+        when(taskRepository.lockOpenDue(eq(List.of(1L)), any())).thenThrow(new IllegalStateException("database down"));
+
+        // when
+        overdueSweeper.sweep();
+
+        // then
+        assertThat(overdueSweeper.queueSize()).isEqualTo(1);
+    }
+
+    private static Task task(Long id, LocalDateTime deadline) {
+        return Task.create(id, "task-" + id, null, deadline);
+    }
+}